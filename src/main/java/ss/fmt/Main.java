@@ -24,6 +24,7 @@
 package ss.fmt;
 
 import org.springframework.boot.SpringApplication;
+import ss.fmt.util.StandardOutput;
 import ss.lana.Bootstrap;
 
 /**
@@ -35,6 +36,10 @@ public class Main {
      * @param args the command line arguments
      */
     public static void main(String[] args) {
+        if (StandardOutput.requested(args)) {
+            // banner and logging must not mix with exported data
+            StandardOutput.redirect();
+        }
         SpringApplication.run(Bootstrap.class, args);
     }
 }
@@ -0,0 +1,272 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.api;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.Deflater;
+import ss.fmt.util.Progress;
+import ss.fmt.util.ProjectLock;
+
+/**
+ * Custom labels export options.
+ * <p>
+ * Optional files are written or used only when set.
+ * </p>
+ * @author ss
+ */
+public class ExportOptions {
+    /**
+     * Export mode.
+     */
+    public enum ExportMode {
+        /** All labels. */
+        ALL,
+        /** Labels new or changed since baseline snapshot. */
+        SINCE_BASELINE,
+        /** Labels without value in some language. */
+        MISSING_TRANSLATIONS
+    }
+    /**
+     * Shard mode.
+     */
+    public enum ShardBy {
+        /** One workbook per category. */
+        CATEGORY,
+        /** One workbook per key prefix, the part before '_'. */
+        PREFIX,
+        /** Workbooks of fixed rows count. */
+        ROWS
+    }
+    /** Salesforce project 'src' folder. */
+    private Path projectSrc;
+    /** Exported languages. */
+    private List<String> languages;
+    /** Filter by category, optional. */
+    private String category;
+    /** Filter by key prefix, optional. */
+    private String prefix;
+    /** Export mode. */
+    private ExportMode mode = ExportMode.ALL;
+    /** Baseline snapshot file, optional. */
+    private Path baseline;
+    /** Coverage summary file for missing translations mode, optional. */
+    private Path coverageReport;
+    /** Compact output: streaming writer. */
+    private boolean compact;
+    /** Build rows in parallel and write them while they are built. */
+    private boolean parallel;
+    /** Zip compression level for compact output. */
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    /** Shard mode for export into several workbooks, optional. */
+    private ShardBy shardBy;
+    /** Rows per shard for rows sharding. */
+    private int shardSize = 1000;
+    /** Print export table to log. */
+    private boolean printTable;
+    /** Progress. */
+    private Progress progress = Progress.disabled();
+    /** Project lock wait timeout, ms. */
+    private long lockTimeout = ProjectLock.DEFAULT_TIMEOUT;
+    /**
+     * @return the projectSrc
+     */
+    public Path getProjectSrc() {
+        return projectSrc;
+    }
+    /**
+     * @param projectSrc the projectSrc to set
+     */
+    public void setProjectSrc(Path projectSrc) {
+        this.projectSrc = projectSrc;
+    }
+    /**
+     * @return the languages
+     */
+    public List<String> getLanguages() {
+        return languages;
+    }
+    /**
+     * @param languages the languages to set
+     */
+    public void setLanguages(List<String> languages) {
+        this.languages = languages;
+    }
+    /**
+     * @return the category
+     */
+    public String getCategory() {
+        return category;
+    }
+    /**
+     * @param category the category to set
+     */
+    public void setCategory(String category) {
+        this.category = category;
+    }
+    /**
+     * @return the prefix
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+    /**
+     * @param prefix the prefix to set
+     */
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+    /**
+     * @return the mode
+     */
+    public ExportMode getMode() {
+        return mode;
+    }
+    /**
+     * @param mode the mode to set
+     */
+    public void setMode(ExportMode mode) {
+        this.mode = mode;
+    }
+    /**
+     * @return the baseline
+     */
+    public Path getBaseline() {
+        return baseline;
+    }
+    /**
+     * @param baseline the baseline to set
+     */
+    public void setBaseline(Path baseline) {
+        this.baseline = baseline;
+    }
+    /**
+     * @return the coverageReport
+     */
+    public Path getCoverageReport() {
+        return coverageReport;
+    }
+    /**
+     * @param coverageReport the coverageReport to set
+     */
+    public void setCoverageReport(Path coverageReport) {
+        this.coverageReport = coverageReport;
+    }
+    /**
+     * @return the compact
+     */
+    public boolean isCompact() {
+        return compact;
+    }
+    /**
+     * @param compact the compact to set
+     */
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+    /**
+     * @return the parallel
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+    /**
+     * @param parallel the parallel to set
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+    /**
+     * @return the compressionLevel
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+    /**
+     * @param compressionLevel the compressionLevel to set
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+    /**
+     * @return the shardBy
+     */
+    public ShardBy getShardBy() {
+        return shardBy;
+    }
+    /**
+     * @param shardBy the shardBy to set
+     */
+    public void setShardBy(ShardBy shardBy) {
+        this.shardBy = shardBy;
+    }
+    /**
+     * @return the shardSize
+     */
+    public int getShardSize() {
+        return shardSize;
+    }
+    /**
+     * @param shardSize the shardSize to set
+     */
+    public void setShardSize(int shardSize) {
+        this.shardSize = shardSize;
+    }
+    /**
+     * @return the printTable
+     */
+    public boolean isPrintTable() {
+        return printTable;
+    }
+    /**
+     * @param printTable the printTable to set
+     */
+    public void setPrintTable(boolean printTable) {
+        this.printTable = printTable;
+    }
+    /**
+     * @return the progress
+     */
+    public Progress getProgress() {
+        return progress;
+    }
+    /**
+     * @param progress the progress to set
+     */
+    public void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+    /**
+     * @return the lockTimeout
+     */
+    public long getLockTimeout() {
+        return lockTimeout;
+    }
+    /**
+     * @param lockTimeout the lockTimeout to set
+     */
+    public void setLockTimeout(long lockTimeout) {
+        this.lockTimeout = lockTimeout;
+    }
+}
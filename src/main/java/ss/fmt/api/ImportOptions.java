@@ -0,0 +1,266 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.api;
+
+import java.nio.file.Path;
+import java.util.List;
+import ss.fmt.util.LanguageMapMerger;
+import ss.fmt.util.Progress;
+import ss.fmt.util.ProjectLock;
+import ss.fmt.util.TranslationValidator;
+
+/**
+ * Custom labels import options.
+ * <p>
+ * Optional files are written or used only when set.
+ * </p>
+ * @author ss
+ */
+public class ImportOptions {
+    /** Salesforce project 'src' folder. */
+    private Path projectSrc;
+    /** Backup directory for original metadata files, optional. */
+    private Path backupDir;
+    /** Pipelined import of a single sheet. */
+    private boolean pipeline;
+    /** Validation mode, null if disabled. */
+    private TranslationValidator.Mode validation;
+    /** Validation report file, optional. */
+    private Path validationReport;
+    /** Baseline snapshot file, optional. */
+    private Path baseline;
+    /** Change set file, optional. */
+    private Path changes;
+    /** Change journal file with old and new values, optional. */
+    private Path journal;
+    /** Log every changed key. */
+    private boolean echoChanges;
+    /** Imported sheet names, null for the first sheet. */
+    private List<String> sheets;
+    /** Import all sheets. */
+    private boolean allSheets;
+    /** Conflict policy for several workbooks or sheets. */
+    private LanguageMapMerger.Policy conflictPolicy =
+            LanguageMapMerger.Policy.LAST_WINS;
+    /** Merge conflicts report file, optional. */
+    private Path conflictReport;
+    /** Print import table to log. */
+    private boolean printTable;
+    /** Progress. */
+    private Progress progress = Progress.disabled();
+    /** Project lock wait timeout, ms. */
+    private long lockTimeout = ProjectLock.DEFAULT_TIMEOUT;
+    /**
+     * @return the projectSrc
+     */
+    public Path getProjectSrc() {
+        return projectSrc;
+    }
+    /**
+     * @param projectSrc the projectSrc to set
+     */
+    public void setProjectSrc(Path projectSrc) {
+        this.projectSrc = projectSrc;
+    }
+    /**
+     * @return the backupDir
+     */
+    public Path getBackupDir() {
+        return backupDir;
+    }
+    /**
+     * @param backupDir the backupDir to set
+     */
+    public void setBackupDir(Path backupDir) {
+        this.backupDir = backupDir;
+    }
+    /**
+     * @return the pipeline
+     */
+    public boolean isPipeline() {
+        return pipeline;
+    }
+    /**
+     * @param pipeline the pipeline to set
+     */
+    public void setPipeline(boolean pipeline) {
+        this.pipeline = pipeline;
+    }
+    /**
+     * @return the validation
+     */
+    public TranslationValidator.Mode getValidation() {
+        return validation;
+    }
+    /**
+     * @param validation the validation to set
+     */
+    public void setValidation(TranslationValidator.Mode validation) {
+        this.validation = validation;
+    }
+    /**
+     * @return the validationReport
+     */
+    public Path getValidationReport() {
+        return validationReport;
+    }
+    /**
+     * @param validationReport the validationReport to set
+     */
+    public void setValidationReport(Path validationReport) {
+        this.validationReport = validationReport;
+    }
+    /**
+     * @return the baseline
+     */
+    public Path getBaseline() {
+        return baseline;
+    }
+    /**
+     * @param baseline the baseline to set
+     */
+    public void setBaseline(Path baseline) {
+        this.baseline = baseline;
+    }
+    /**
+     * @return the changes
+     */
+    public Path getChanges() {
+        return changes;
+    }
+    /**
+     * @param changes the changes to set
+     */
+    public void setChanges(Path changes) {
+        this.changes = changes;
+    }
+    /**
+     * @return the journal
+     */
+    public Path getJournal() {
+        return journal;
+    }
+    /**
+     * @param journal the journal to set
+     */
+    public void setJournal(Path journal) {
+        this.journal = journal;
+    }
+    /**
+     * @return the echoChanges
+     */
+    public boolean isEchoChanges() {
+        return echoChanges;
+    }
+    /**
+     * @param echoChanges the echoChanges to set
+     */
+    public void setEchoChanges(boolean echoChanges) {
+        this.echoChanges = echoChanges;
+    }
+    /**
+     * @return the sheets
+     */
+    public List<String> getSheets() {
+        return sheets;
+    }
+    /**
+     * @param sheets the sheets to set
+     */
+    public void setSheets(List<String> sheets) {
+        this.sheets = sheets;
+    }
+    /**
+     * @return the allSheets
+     */
+    public boolean isAllSheets() {
+        return allSheets;
+    }
+    /**
+     * @param allSheets the allSheets to set
+     */
+    public void setAllSheets(boolean allSheets) {
+        this.allSheets = allSheets;
+    }
+    /**
+     * @return the conflictPolicy
+     */
+    public LanguageMapMerger.Policy getConflictPolicy() {
+        return conflictPolicy;
+    }
+    /**
+     * @param conflictPolicy the conflictPolicy to set
+     */
+    public void setConflictPolicy(LanguageMapMerger.Policy conflictPolicy) {
+        this.conflictPolicy = conflictPolicy;
+    }
+    /**
+     * @return the conflictReport
+     */
+    public Path getConflictReport() {
+        return conflictReport;
+    }
+    /**
+     * @param conflictReport the conflictReport to set
+     */
+    public void setConflictReport(Path conflictReport) {
+        this.conflictReport = conflictReport;
+    }
+    /**
+     * @return the printTable
+     */
+    public boolean isPrintTable() {
+        return printTable;
+    }
+    /**
+     * @param printTable the printTable to set
+     */
+    public void setPrintTable(boolean printTable) {
+        this.printTable = printTable;
+    }
+    /**
+     * @return the progress
+     */
+    public Progress getProgress() {
+        return progress;
+    }
+    /**
+     * @param progress the progress to set
+     */
+    public void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+    /**
+     * @return the lockTimeout
+     */
+    public long getLockTimeout() {
+        return lockTimeout;
+    }
+    /**
+     * @param lockTimeout the lockTimeout to set
+     */
+    public void setLockTimeout(long lockTimeout) {
+        this.lockTimeout = lockTimeout;
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.api;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.log4j.Logger;
+import ss.fmt.jaxb.model.CustomLabels;
+import ss.fmt.jaxb.model.Translations;
+import ss.fmt.util.ChangeSet;
+import ss.fmt.util.CustomLabelsUtil;
+import ss.fmt.util.LanguageMapBuilder;
+import ss.fmt.util.MetadataTransaction;
+import ss.fmt.util.Progress;
+import ss.fmt.util.TranslationValidator;
+import ss.fmt.util.XlsxStreamReader;
+
+/**
+ * Pipelined custom labels import.
+ * <p>
+ * Import file rows are streamed through a bounded queue to the language map
+ * builder while metadata files are parsed in parallel. Parsing of the
+ * translation files starts as soon as the header row is read, and every
+ * metadata file is patched and staged as soon as its parsed content and all
+ * import rows are available.
+ * </p>
+ * @author ss
+ */
+class ImportPipeline extends CustomLabelsUtil {
+    /** Logger. */
+    private static final Logger LOG = Logger.getLogger(ImportPipeline.class);
+    /** Rows queue capacity. */
+    private static final int QUEUE_CAPACITY = 1000;
+    /** End of rows marker. */
+    private static final Row END = new Row(-1, Collections.emptyList());
+    /** Importer. */
+    private final LabelsImporter importer;
+    /**
+     * Import row.
+     */
+    private static final class Row {
+        /** Row number. */
+        private final int num;
+        /** Row cells. */
+        private final List<String> cells;
+        /**
+         * Constructor.
+         * @param num row number.
+         * @param cells row cells.
+         */
+        Row(final int num, final List<String> cells) {
+            this.num = num;
+            this.cells = cells;
+        }
+    }
+    /**
+     * Constructor.
+     * @param importer importer.
+     */
+    ImportPipeline(final LabelsImporter importer) {
+        this.importer = importer;
+    }
+    /**
+     * Execute import.
+     * @param importFile xlsx file.
+     * @param projectFolder salesforce project folder.
+     * @param options import options.
+     * @param changes change set, gets changed keys.
+     * @throws Exception error.
+     */
+    void execute(final File importFile, final File projectFolder,
+            final ImportOptions options, final ChangeSet changes)
+            throws Exception {
+        File customLabelsFile = importer.customLabelsFile(projectFolder);
+        Progress progress = options.getProgress();
+        PipelineStage read = new PipelineStage("read");
+        PipelineStage apply = new PipelineStage("apply");
+        PipelineStage parse = new PipelineStage("parse");
+        PipelineStage write = new PipelineStage("write");
+        long start = System.nanoTime();
+        progress.phase("pipeline", -1);
+        ExecutorService pool = Executors.newFixedThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors()),
+                (r) -> {
+                    // a stuck stage must not keep the JVM alive
+                    Thread t = new Thread(r, "import-pipeline");
+                    t.setDaemon(true);
+                    return t;
+                });
+        BlockingQueue<Row> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        try (MetadataTransaction tx = new MetadataTransaction(
+                LabelsImporter.file(options.getBackupDir()))) {
+            CompletableFuture<CustomLabels> labels = CompletableFuture
+                    .supplyAsync(() -> parse.call(
+                            () -> extractCustomLabels(customLabelsFile,
+                                    progress)), pool);
+            Future<Void> reader = pool.submit(
+                    () -> readRows(importFile, queue, read, progress));
+            TranslationValidator validator = null;
+            if (options.getValidation() != null) {
+                // source index is needed before the first row is applied
+                await(labels);
+                validator = importer.validator(labels.get(), projectFolder,
+                        options);
+            }
+            LanguageMapBuilder builder = new LanguageMapBuilder(validator);
+            Map<String, CompletableFuture<Translations>> translations =
+                    new HashMap<>();
+            boolean parseStarted = false;
+            for (Row row = queue.take(); row != END; row = queue.take()) {
+                long applyStart = System.nanoTime();
+                builder.accept(row.num, row.cells);
+                if (!parseStarted && builder.isHeaderRead()) {
+                    parseStarted = true;
+                    for (String lang : builder.getLanguages()) {
+                        File f = importer.translationFile(projectFolder, lang);
+                        if (f.exists()) {
+                            translations.put(lang, CompletableFuture
+                                    .supplyAsync(() -> parse.call(
+                                            () -> extractTranslations(f,
+                                                    progress)),
+                                            pool));
+                        } else {
+                            LOG.warn("translation file ["
+                                    + f.getAbsolutePath() + "] isn't exists");
+                        }
+                    }
+                }
+                apply.add(System.nanoTime() - applyStart, 1);
+            }
+            await(reader);
+            if (!builder.isValid()) {
+                throw new ImportException("invalid table structure, "
+                        + "metadata wasn't changed");
+            }
+            if (validator != null) {
+                importer.writeValidationReport(validator, options);
+            }
+            LOG.info("import file was read, rows [" + builder.getRows()
+                    + "], unchanged rows skipped [" + builder.getSkipped()
+                    + "]");
+            Map<String, Map<String, String>> langMap =
+                    builder.getLanguageMap();
+            CompletableFuture<Set<String>> labelsLang = labels.thenApplyAsync(
+                    (cl) -> write.call(() -> {
+                        Set<String> langs = importer.applyChanges(cl, langMap,
+                                changes);
+                        // files without changes aren't rewritten
+                        if (changes.contains(LabelsImporter.labelsPath())) {
+                            tx.stage(customLabelsFile,
+                                    (os) -> marshal(cl, progress.track(os)));
+                            LOG.info(customLabelsFile.getName()
+                                    + " prepared...");
+                        }
+                        return langs;
+                    }), pool);
+            Map<String, Translations> saved = new ConcurrentHashMap<>();
+            List<CompletableFuture<?>> writes = new ArrayList<>();
+            writes.add(labelsLang);
+            translations.forEach((lang, parsed) -> {
+                File f = importer.translationFile(projectFolder, lang);
+                writes.add(parsed.thenAcceptBothAsync(labelsLang,
+                        (t, excludeLang) -> write.call(() -> {
+                            if (excludeLang.contains(lang)) {
+                                LOG.info("language [" + lang + "] was saved "
+                                        + "to " + customLabelsFile.getName()
+                                        + " file, skip it...");
+                                return null;
+                            }
+                            importer.applyChanges(t, langMap.get(lang),
+                                    f.getName(), changes);
+                            if (changes.contains(LabelsImporter
+                                    .translationPath(f.getName()))) {
+                                tx.stage(f, (os) -> marshal(t,
+                                        progress.track(os)));
+                                LOG.info(f.getName() + " prepared...");
+                            }
+                            saved.put(lang.trim(), t);
+                            return null;
+                        }), pool));
+            });
+            try {
+                CompletableFuture.allOf(writes.toArray(
+                        new CompletableFuture<?>[writes.size()])).join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+            progress.checkCancelled();
+            tx.commit();
+            importer.updateBaseline(LabelsImporter.file(options.getBaseline()),
+                    projectFolder, labels.get(), saved, langMap);
+        } finally {
+            pool.shutdownNow();
+        }
+        long wall = System.nanoTime() - start;
+        for (PipelineStage stage : new PipelineStage[] {
+            read, apply, parse, write
+        }) {
+            LOG.info(stage.report(wall));
+        }
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Read import file rows into the queue. If reading fails or is
+     * interrupted because the consumer failed, pending rows are dropped and
+     * the end marker is queued without blocking, the import fails anyway.
+     * @param importFile xlsx file.
+     * @param queue rows queue.
+     * @param read read stage.
+     * @param progress progress.
+     * @return nothing.
+     * @throws Exception error.
+     */
+    private Void readRows(final File importFile,
+            final BlockingQueue<Row> queue, final PipelineStage read,
+            final Progress progress) throws Exception {
+        long start = System.nanoTime();
+        long[] blocked = new long[1];
+        long[] rows = new long[1];
+        try {
+            new XlsxStreamReader(progress).read(importFile, (num, cells) -> {
+                long putStart = System.nanoTime();
+                queue.put(new Row(num, cells));
+                blocked[0] += System.nanoTime() - putStart;
+                rows[0]++;
+            });
+        } catch (Exception e) {
+            queue.clear();
+            queue.offer(END);
+            throw e;
+        } finally {
+            read.add(System.nanoTime() - start - blocked[0], rows[0]);
+        }
+        queue.put(END);
+        return null;
+    }
+    /**
+     * Wait for task.
+     * @param task task.
+     * @throws Exception task error.
+     */
+    private void await(final Future<?> task) throws Exception {
+        try {
+            task.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+    /**
+     * Get original error.
+     * @param e wrapper.
+     * @return original error.
+     */
+    private Exception unwrap(final Exception e) {
+        Throwable cause = e.getCause();
+        while ((cause instanceof CompletionException
+                || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof Exception) {
+            return (Exception) cause;
+        }
+        return e;
+    }
+}
@@ -0,0 +1,780 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.api;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import org.apache.log4j.Logger;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import ss.fmt.constants.ProjectFile;
+import ss.fmt.constants.ProjectFolder;
+import ss.fmt.jaxb.model.CustomLabel;
+import ss.fmt.jaxb.model.CustomLabels;
+import ss.fmt.jaxb.model.Translations;
+import ss.fmt.util.BaselineSnapshot;
+import ss.fmt.util.CountingOutputStream;
+import ss.fmt.util.Csv;
+import ss.fmt.util.CustomLabelsUtil;
+import ss.fmt.util.Progress;
+import ss.fmt.util.ProjectLock;
+import ss.fmt.util.RowHash;
+import ss.fmt.util.TranslationCoverage;
+import ss.fmt.util.XlsxTableWriter;
+
+/**
+ * Export custom labels translations to xlsx.
+ * <p>
+ * The exporter keeps no state between calls, one instance can be shared
+ * and used from several threads, every call writes only to the given
+ * stream or files. Metadata and baseline are read under a shared
+ * {@link ProjectLock}, the baseline is written under an exclusive one.
+ * </p>
+ * @author ss
+ */
+public class LabelsExporter extends CustomLabelsUtil {
+    /** Logger. */
+    private static final Logger LOG = Logger.getLogger(LabelsExporter.class);
+    /** Sheet name. */
+    private static final String SHEET_NAME = "custom labels";
+    /** Shard export file template. */
+    private static final String TMPL_SHARD_FILE =
+            "custom-labels-export-%s.xlsx";
+    /** Shard manifest file name. */
+    private static final String SHARD_MANIFEST =
+            "custom-labels-export-manifest.csv";
+    /** Key prefix separator. */
+    private static final char PREFIX_SEPARATOR = '_';
+    /** Labels per row chunk of parallel export. */
+    private static final int ROW_CHUNK = 512;
+    /**
+     * Table row consumer.
+     */
+    private interface RowWriter {
+        /**
+         * Write row.
+         * @param row row values.
+         */
+        void writeRow(List<String> row);
+    }
+    /**
+     * Loaded export data.
+     */
+    private static class ExportData {
+        /** Translations by language. */
+        private final Map<String, Map<String, String>> translationFiles;
+        /** Exported labels. */
+        private final CustomLabels labels;
+        /** Next baseline snapshot. */
+        private final BaselineSnapshot next;
+        /** Version of the baseline file that was read. */
+        private final String baselineVersion;
+        /**
+         * Constructor.
+         * @param translationFiles translations by language.
+         * @param labels exported labels.
+         * @param next next baseline snapshot.
+         * @param baselineVersion version of the baseline file that was read.
+         */
+        ExportData(final Map<String, Map<String, String>> translationFiles,
+                final CustomLabels labels, final BaselineSnapshot next,
+                final String baselineVersion) {
+            this.translationFiles = translationFiles;
+            this.labels = labels;
+            this.next = next;
+            this.baselineVersion = baselineVersion;
+        }
+    }
+    /**
+     * Export workbook to stream.
+     * @param options export options, shard options are ignored.
+     * @param out target stream, not closed.
+     * @throws Exception error.
+     */
+    public void export(final ExportOptions options, final OutputStream out)
+            throws Exception {
+        Progress progress = options.getProgress();
+        ExportData data = load(options);
+        if (options.isParallel()) {
+            exportParallel(options, data, out);
+            saveBaseline(options, data);
+            return;
+        }
+        progress.phase("rows", data.labels.getLabels().size());
+        List<List<String>> table = createTableData(data.translationFiles,
+                data.labels, options.getCategory(), options.getPrefix(),
+                progress);
+        if (options.isPrintTable()) {
+            printTable(table);
+        }
+        LOG.info("total rows [" + (table.size() - 1) + "]");
+        long start = System.currentTimeMillis();
+        progress.phase("write", table.size());
+        CountingOutputStream os = new CountingOutputStream(
+                progress.track(out));
+        if (options.isCompact()) {
+            try (XlsxTableWriter writer = new XlsxTableWriter(os, SHEET_NAME,
+                    options.getCompressionLevel())) {
+                for (List<String> row : table) {
+                    writer.writeRow(row);
+                    progress.increment();
+                }
+            }
+        } else {
+            writeStandard(table, os, progress);
+        }
+        os.flush();
+        LOG.info("output mode [" + (options.isCompact() ? "compact"
+                : "standard") + "], size [" + os.getCount()
+                + " bytes], write time ["
+                + (System.currentTimeMillis() - start) + " ms]");
+        saveBaseline(options, data);
+    }
+    /**
+     * Export workbook to file, the file is removed if export fails.
+     * @param options export options, shard options are ignored.
+     * @param file target file.
+     * @throws Exception error.
+     */
+    public void export(final ExportOptions options, final Path file)
+            throws Exception {
+        try (OutputStream os = new BufferedOutputStream(
+                new FileOutputStream(file.toFile()))) {
+            export(options, os);
+        } catch (Exception e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        LOG.info("translations saved in file [" + file.toAbsolutePath()
+                + "]");
+    }
+    /**
+     * Export into several workbooks in parallel, with CSV manifest.
+     * @param options export options, shard mode is required.
+     * @param dir target directory.
+     * @return shard files.
+     * @throws Exception error.
+     */
+    public List<Path> exportShards(final ExportOptions options,
+            final Path dir) throws Exception {
+        if (options.getShardBy() == null) {
+            throw new IllegalArgumentException("shard mode isn't set");
+        }
+        ExportData data = load(options);
+        List<Path> files = exportShards(data.translationFiles, data.labels,
+                options, dir.toFile());
+        saveBaseline(options, data);
+        return files;
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Parse metadata and select exported labels.
+     * @param options export options.
+     * @return export data.
+     * @throws Exception error.
+     */
+    private ExportData load(final ExportOptions options) throws Exception {
+        Progress progress = options.getProgress();
+        File projectFolder = options.getProjectSrc().toFile();
+        String category = options.getCategory();
+        String prefix = options.getPrefix();
+        File customLabelsFile = new File(projectFolder,
+                ProjectFolder.CUSTOM_LABELS + File.separator
+                + ProjectFile.CUSTOM_LABELS);
+        if (!customLabelsFile.exists()) {
+            throw new FileNotFoundException(ProjectFile.CUSTOM_LABELS
+                    + " not exist! Path [" + customLabelsFile.getAbsolutePath()
+                    + "]");
+        }
+        LOG.info(customLabelsFile.getAbsoluteFile() + " found");
+        progress.phase("parse", -1);
+        Map<String, Map<String, String>> translationFiles = new HashMap<>();
+        CustomLabels customLabels;
+        BaselineSnapshot baseline = null;
+        String baselineVersion = null;
+        // metadata is only read, concurrent exports can run in parallel
+        try (ProjectLock lock = ProjectLock.shared(projectFolder,
+                options.getLockTimeout())) {
+            for (String lang : options.getLanguages()) {
+                File f = new File(projectFolder, ProjectFolder.TRANSLATIONS
+                        + File.separator + String.format(
+                                ProjectFile.TMPL_TRANSLATION, lang.trim()));
+                if (f.exists()) {
+                    LOG.info("translations for '" + lang.trim()
+                            + "' found. Path [" + f.getAbsolutePath() + "]");
+                    Translations t = extractTranslations(f, progress);
+                    Map<String, String> map = new HashMap<>();
+                    t.getCustomLabels().forEach((cl) -> {
+                        map.put(cl.getName(), cl.getLabel());
+                    });
+                    translationFiles.put(lang, map);
+                } else {
+                    LOG.warn("translations for '" + lang.trim()
+                            + "' not found. Path [" + f.getAbsolutePath()
+                            + "]");
+                }
+            }
+            customLabels = extractCustomLabels(customLabelsFile, progress);
+            // imports update the baseline under the exclusive lock
+            if (options.getBaseline() != null) {
+                File baselineFile = options.getBaseline().toFile();
+                baselineVersion = version(baselineFile);
+                baseline = BaselineSnapshot.read(baselineFile);
+            }
+        }
+        BaselineSnapshot next = new BaselineSnapshot(
+                translationFiles.keySet());
+        List<CustomLabel> changed = compareWithBaseline(translationFiles,
+                customLabels, category, prefix, baseline, next);
+        CustomLabels exported = customLabels;
+        if (options.getMode() == ExportOptions.ExportMode.SINCE_BASELINE) {
+            exported = new CustomLabels();
+            exported.setLabels(changed);
+            LOG.info("labels changed since baseline [" + changed.size()
+                    + "]");
+        } else if (options.getMode()
+                == ExportOptions.ExportMode.MISSING_TRANSLATIONS) {
+            List<CustomLabel> filtered = new ArrayList<>();
+            customLabels.getLabels().forEach((cl) -> {
+                if (accept(cl, category, prefix)) {
+                    filtered.add(cl);
+                }
+            });
+            TranslationCoverage coverage = new TranslationCoverage(
+                    filtered, translationFiles);
+            if (options.getCoverageReport() != null) {
+                coverage.writeSummary(options.getCoverageReport().toFile());
+            }
+            exported = new CustomLabels();
+            exported.setLabels(coverage.getMissing());
+        }
+        return new ExportData(translationFiles, exported, next,
+                baselineVersion);
+    }
+    /**
+     * Save next baseline snapshot if it's requested. The snapshot is written
+     * under the exclusive project lock and only if the baseline file wasn't
+     * replaced by an import since it was read, otherwise the newer baseline
+     * is kept.
+     * @param options export options.
+     * @param data export data.
+     * @throws Exception error.
+     */
+    private void saveBaseline(final ExportOptions options,
+            final ExportData data) throws Exception {
+        if (options.getBaseline() == null) {
+            return;
+        }
+        File baselineFile = options.getBaseline().toFile();
+        try (ProjectLock lock = ProjectLock.exclusive(
+                options.getProjectSrc().toFile(), options.getLockTimeout())) {
+            if (!Objects.equals(data.baselineVersion,
+                    version(baselineFile))) {
+                LOG.warn("baseline was changed by another run, not saved ["
+                        + baselineFile.getAbsolutePath() + "]");
+                return;
+            }
+            data.next.write(baselineFile);
+        }
+        LOG.info("baseline saved [" + baselineFile.getAbsolutePath()
+                + "], labels [" + data.next.size() + "]");
+    }
+    /**
+     * Version of the file. The baseline is replaced by a move, so a new
+     * file has another key or modification time.
+     * @param file file.
+     * @return version, null if file doesn't exist.
+     * @throws IOException error.
+     */
+    private static String version(final File file) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        BasicFileAttributes attrs = Files.readAttributes(file.toPath(),
+                BasicFileAttributes.class);
+        return attrs.fileKey() + ":" + attrs.lastModifiedTime().toMillis()
+                + ":" + attrs.size();
+    }
+    /**
+     * Create table data, the last column is the row hash.
+     * @param translationFiles translation files data.
+     * @param customLabels custom labels data.
+     * @param category filter by category.
+     * @param prefix  filter by prefix.
+     * @param progress progress.
+     * @return table data.
+     */
+    private List<List<String>> createTableData(
+            final Map<String, Map<String, String>> translationFiles,
+            final CustomLabels customLabels,
+            final String category, final String prefix,
+            final Progress progress) {
+        List<List<String>> table = new ArrayList<>();
+        table.add(createHeader(translationFiles));
+        for (CustomLabel cl : customLabels.getLabels()) {
+            progress.increment();
+            if (!accept(cl, category, prefix)) {
+                continue;
+            }
+            table.add(createRow(translationFiles, cl));
+        }
+        return table;
+    }
+    /**
+     * Create table header.
+     * @param translationFiles translation files data.
+     * @return header row.
+     */
+    private List<String> createHeader(
+            final Map<String, Map<String, String>> translationFiles) {
+        List<String> firstRow = new ArrayList<>();
+        firstRow.add("Translation key");
+        firstRow.add("Description");
+        firstRow.addAll(translationFiles.keySet());
+        firstRow.add(RowHash.HEADER);
+        return firstRow;
+    }
+    /**
+     * Create table row, one map lookup per cell.
+     * @param translationFiles translation files data, read only.
+     * @param cl custom label.
+     * @return row with hash.
+     */
+    private List<String> createRow(
+            final Map<String, Map<String, String>> translationFiles,
+            final CustomLabel cl) {
+        String key = cl.getFullName();
+        List<String> row = new ArrayList<>(translationFiles.size() + 3);
+        row.add(key);
+        row.add(cl.getShortDescription());
+        for (Map.Entry<String, Map<String, String>> e
+                : translationFiles.entrySet()) {
+            if (e.getKey().equals(cl.getLanguage())) {
+                row.add(cl.getValue());
+            } else {
+                row.add(e.getValue().getOrDefault(key, ""));
+            }
+        }
+        row.add(RowHash.compute(row, -1));
+        return row;
+    }
+    /**
+     * Export workbook, rows are built in parallel chunks and written in
+     * label order while next chunks are being built. The output is the same
+     * as of the serial export.
+     * @param options export options.
+     * @param data export data.
+     * @param out target stream, not closed.
+     * @throws Exception error.
+     */
+    private void exportParallel(final ExportOptions options,
+            final ExportData data, final OutputStream out) throws Exception {
+        Progress progress = options.getProgress();
+        progress.phase("rows", data.labels.getLabels().size());
+        long start = System.currentTimeMillis();
+        List<List<String>> printed = options.isPrintTable()
+                ? new ArrayList<>() : null;
+        CountingOutputStream os = new CountingOutputStream(
+                progress.track(out));
+        int rows;
+        if (options.isCompact()) {
+            try (XlsxTableWriter writer = new XlsxTableWriter(os, SHEET_NAME,
+                    options.getCompressionLevel())) {
+                rows = writeParallel(data, options, writer::writeRow,
+                        printed);
+            }
+        } else {
+            StandardSheet sheet = new StandardSheet();
+            rows = writeParallel(data, options, sheet::writeRow, printed);
+            sheet.write(os);
+        }
+        os.flush();
+        if (printed != null) {
+            printTable(printed);
+        }
+        LOG.info("total rows [" + rows + "]");
+        LOG.info("output mode [" + (options.isCompact() ? "compact"
+                : "standard") + "], size [" + os.getCount()
+                + " bytes], parallel rows and write time ["
+                + (System.currentTimeMillis() - start) + " ms]");
+    }
+    /**
+     * Build row chunks with fork-join and write them in order. At most
+     * 2 x cores chunks are in flight, a chunk is submitted when the oldest
+     * one is written, so the pool never runs far ahead of the writer.
+     * @param data export data.
+     * @param options export options.
+     * @param writer row writer.
+     * @param printed gets written rows, can be null.
+     * @return written rows without header.
+     * @throws Exception error.
+     */
+    private int writeParallel(final ExportData data,
+            final ExportOptions options, final RowWriter writer,
+            final List<List<String>> printed) throws Exception {
+        List<CustomLabel> labels = data.labels.getLabels();
+        List<String> header = createHeader(data.translationFiles);
+        writer.writeRow(header);
+        if (printed != null) {
+            printed.add(header);
+        }
+        int chunks = (labels.size() + ROW_CHUNK - 1) / ROW_CHUNK;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Deque<ForkJoinTask<List<List<String>>>> window = new ArrayDeque<>();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        int rows = 0;
+        try {
+            int submitted = 0;
+            for (int i = 0; i < chunks; i++) {
+                while (submitted < chunks && window.size() < 2 * threads) {
+                    int from = submitted++ * ROW_CHUNK;
+                    window.add(pool.submit(new RowChunk(data.translationFiles,
+                            labels, options, from, Math.min(from + ROW_CHUNK,
+                                    labels.size()))));
+                }
+                List<List<String>> chunk;
+                try {
+                    chunk = window.poll().get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+                for (List<String> row : chunk) {
+                    writer.writeRow(row);
+                }
+                if (printed != null) {
+                    printed.addAll(chunk);
+                }
+                rows += chunk.size();
+                options.getProgress().add(Math.min(ROW_CHUNK,
+                        labels.size() - i * ROW_CHUNK));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return rows;
+    }
+    /**
+     * Builds rows of a label range, splits the range in halves.
+     */
+    private class RowChunk extends RecursiveTask<List<List<String>>> {
+        /** Serial version. */
+        private static final long serialVersionUID = 1L;
+        /** Max labels built without split. */
+        private static final int SPLIT_THRESHOLD = 64;
+        /** Translation files data, read only. */
+        private final Map<String, Map<String, String>> translationFiles;
+        /** Exported labels. */
+        private final List<CustomLabel> labels;
+        /** Export options. */
+        private final ExportOptions options;
+        /** First label. */
+        private final int from;
+        /** Label after the last one. */
+        private final int to;
+        /**
+         * Constructor.
+         * @param translationFiles translation files data.
+         * @param labels exported labels.
+         * @param options export options.
+         * @param from first label.
+         * @param to label after the last one.
+         */
+        RowChunk(final Map<String, Map<String, String>> translationFiles,
+                final List<CustomLabel> labels, final ExportOptions options,
+                final int from, final int to) {
+            this.translationFiles = translationFiles;
+            this.labels = labels;
+            this.options = options;
+            this.from = from;
+            this.to = to;
+        }
+        @Override
+        protected List<List<String>> compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                RowChunk right = new RowChunk(translationFiles, labels,
+                        options, mid, to);
+                right.fork();
+                List<List<String>> rows = new RowChunk(translationFiles,
+                        labels, options, from, mid).compute();
+                rows.addAll(right.join());
+                return rows;
+            }
+            List<List<String>> rows = new ArrayList<>(to - from);
+            for (CustomLabel cl : labels.subList(from, to)) {
+                if (accept(cl, options.getCategory(), options.getPrefix())) {
+                    rows.add(createRow(translationFiles, cl));
+                }
+            }
+            return rows;
+        }
+    }
+    /**
+     * In-memory XLSX sheet of the standard output mode.
+     */
+    private static class StandardSheet {
+        /** Workbook. */
+        private final Workbook wb = new XSSFWorkbook();
+        /** Sheet. */
+        private final Sheet sheet = wb.createSheet(SHEET_NAME);
+        /** Cell style. */
+        private final CellStyle style = wb.createCellStyle();
+        /** Written rows. */
+        private int counter = 0;
+        /**
+         * Constructor.
+         */
+        StandardSheet() {
+            style.setWrapText(true);
+        }
+        /**
+         * Write row.
+         * @param dataRow row values.
+         */
+        void writeRow(final List<String> dataRow) {
+            sheet.setColumnWidth(counter, 10000);
+            Row row = sheet.createRow(counter);
+            for (int i = 0; i < dataRow.size(); i++) {
+                Cell cell = row.createCell(i);
+                cell.setCellStyle(style);
+                cell.setCellValue(dataRow.get(i));
+                if (counter == 0 && RowHash.HEADER.equals(dataRow.get(i))) {
+                    sheet.setColumnHidden(i, true);
+                }
+            }
+            row.setRowStyle(style);
+            counter++;
+        }
+        /**
+         * Write workbook.
+         * @param os output stream, not closed.
+         * @throws IOException error.
+         */
+        void write(final OutputStream os) throws IOException {
+            wb.write(os);
+        }
+    }
+    /**
+     * Compare labels with baseline and fill the next baseline.
+     * @param translationFiles translation files data.
+     * @param customLabels custom labels data.
+     * @param category filter by category.
+     * @param prefix filter by prefix.
+     * @param baseline previous baseline, can be null.
+     * @param next next baseline, gets fingerprints of filtered labels and
+     * keeps previous fingerprints of other labels.
+     * @return filtered labels new or changed since baseline.
+     */
+    private List<CustomLabel> compareWithBaseline(
+            final Map<String, Map<String, String>> translationFiles,
+            final CustomLabels customLabels, final String category,
+            final String prefix, final BaselineSnapshot baseline,
+            final BaselineSnapshot next) {
+        Map<String, Map<String, String>> byLang = new HashMap<>();
+        translationFiles.forEach((lang, map) -> {
+            byLang.put(lang.trim(), map);
+        });
+        BaselineSnapshot previous = null;
+        if (baseline == null) {
+            LOG.info("baseline not found, all labels are new");
+        } else if (!baseline.getLanguages().equals(next.getLanguages())) {
+            LOG.warn("baseline languages " + baseline.getLanguages()
+                    + " differ from export languages, all labels changed");
+        } else {
+            previous = baseline;
+            next.putAll(baseline);
+        }
+        List<CustomLabel> changed = new ArrayList<>();
+        for (CustomLabel cl : customLabels.getLabels()) {
+            if (!accept(cl, category, prefix)) {
+                continue;
+            }
+            long fingerprint = next.fingerprint(cl, byLang);
+            if (previous == null
+                    || previous.isChanged(cl.getFullName(), fingerprint)) {
+                changed.add(cl);
+            }
+            next.put(cl.getFullName(), fingerprint);
+        }
+        return changed;
+    }
+    /**
+     * Check custom label filter.
+     * @param cl custom label.
+     * @param category filter by category.
+     * @param prefix filter by prefix.
+     * @return true if label passes filter.
+     */
+    private boolean accept(final CustomLabel cl, final String category,
+            final String prefix) {
+        if (category != null && !category.equals(cl.getCategories())) {
+            return false;
+        }
+        return prefix == null || cl.getFullName().startsWith(prefix);
+    }
+    /**
+     * Export data to several XLSX files in parallel.
+     * @param translationFiles translation files data.
+     * @param customLabels custom labels data.
+     * @param options export options.
+     * @param dir target directory.
+     * @return shard files.
+     * @throws Exception error.
+     */
+    private List<Path> exportShards(
+            final Map<String, Map<String, String>> translationFiles,
+            final CustomLabels customLabels, final ExportOptions options,
+            final File dir) throws Exception {
+        long start = System.currentTimeMillis();
+        Progress progress = options.getProgress();
+        Map<String, List<CustomLabel>> shards = new LinkedHashMap<>();
+        int counter = 0;
+        for (CustomLabel cl : customLabels.getLabels()) {
+            if (!accept(cl, options.getCategory(), options.getPrefix())) {
+                continue;
+            }
+            String shard;
+            if (options.getShardBy() == ExportOptions.ShardBy.CATEGORY) {
+                shard = cl.getCategories() == null
+                        ? TranslationCoverage.UNCATEGORIZED
+                        : cl.getCategories();
+            } else if (options.getShardBy() == ExportOptions.ShardBy.PREFIX) {
+                String key = cl.getFullName();
+                int idx = key.indexOf(PREFIX_SEPARATOR);
+                shard = idx > 0 ? key.substring(0, idx) : key;
+            } else {
+                shard = String.format("%04d",
+                        counter / options.getShardSize() + 1);
+            }
+            shards.computeIfAbsent(shard, (k) -> new ArrayList<>()).add(cl);
+            counter++;
+        }
+        Set<String> fileNames = new HashSet<>();
+        Map<String, File> files = new LinkedHashMap<>();
+        shards.keySet().forEach((shard) -> {
+            String name = shard.replaceAll("[^A-Za-z0-9_\\-]", "_");
+            String unique = name;
+            for (int i = 2; !fileNames.add(unique.toLowerCase()); i++) {
+                unique = name + "-" + i;
+            }
+            files.put(shard, new File(dir,
+                    String.format(TMPL_SHARD_FILE, unique)));
+        });
+        progress.phase("shards", counter);
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        shards.forEach((shard, labels) -> {
+            tasks.add(() -> {
+                CustomLabels part = new CustomLabels();
+                part.setLabels(labels);
+                List<List<String>> table = createTableData(translationFiles,
+                        part, null, null, Progress.disabled());
+                File file = files.get(shard);
+                try (OutputStream os = progress.track(
+                        new BufferedOutputStream(new FileOutputStream(file)));
+                        XlsxTableWriter writer = new XlsxTableWriter(os,
+                                SHEET_NAME, options.getCompressionLevel())) {
+                    for (List<String> row : table) {
+                        writer.writeRow(row);
+                        progress.increment();
+                    }
+                } catch (Exception e) {
+                    Files.deleteIfExists(file.toPath());
+                    throw e;
+                }
+                LOG.info("shard [" + shard + "] saved in file ["
+                        + file.getAbsolutePath() + "], rows ["
+                        + (table.size() - 1) + "]");
+                return table.size() - 1;
+            });
+        });
+        List<Integer> rows = invokeAll(tasks);
+        File manifest = new File(dir, SHARD_MANIFEST);
+        try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(manifest), StandardCharsets.UTF_8))) {
+            pw.println(Csv.line("file", "shard", "rows"));
+            int i = 0;
+            for (String shard : shards.keySet()) {
+                pw.println(Csv.line(files.get(shard).getName(), shard,
+                        String.valueOf(rows.get(i++))));
+            }
+        }
+        LOG.info("shards [" + shards.size() + "], total rows [" + counter
+                + "], manifest [" + manifest.getAbsolutePath()
+                + "], write time [" + (System.currentTimeMillis() - start)
+                + " ms]");
+        List<Path> result = new ArrayList<>();
+        files.values().forEach((f) -> {
+            result.add(f.toPath());
+        });
+        return result;
+    }
+    /**
+     * Write table to XLSX with in-memory workbook.
+     * @param table data table.
+     * @param os output stream.
+     * @param progress progress.
+     * @throws Exception error.
+     */
+    private void writeStandard(final List<List<String>> table,
+            final OutputStream os, final Progress progress) throws Exception {
+        StandardSheet sheet = new StandardSheet();
+        for (List<String> dataRow : table) {
+            sheet.writeRow(dataRow);
+            progress.increment();
+        }
+        sheet.write(os);
+    }
+}
@@ -0,0 +1,718 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.api;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.log4j.Logger;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import ss.fmt.constants.ProjectFile;
+import ss.fmt.constants.ProjectFolder;
+import ss.fmt.jaxb.model.CustomLabel;
+import ss.fmt.jaxb.model.CustomLabels;
+import ss.fmt.jaxb.model.Translations;
+import ss.fmt.util.BaselineSnapshot;
+import ss.fmt.util.ChangeJournal;
+import ss.fmt.util.ChangeSet;
+import ss.fmt.util.CustomLabelsUtil;
+import ss.fmt.util.LanguageMapBuilder;
+import ss.fmt.util.LanguageMapMerger;
+import ss.fmt.util.MetadataTransaction;
+import ss.fmt.util.Progress;
+import ss.fmt.util.ProjectLock;
+import ss.fmt.util.TranslationValidator;
+import ss.fmt.util.XlsxStreamReader;
+
+/**
+ * Import custom labels from xlsx to metadata files.
+ * <p>
+ * The importer keeps no state between calls, one instance can be shared
+ * and used from several threads. The project is locked exclusively while
+ * metadata is read and written, see {@link ProjectLock}.
+ * </p>
+ * @author ss
+ */
+public class LabelsImporter extends CustomLabelsUtil {
+    /** Logger. */
+    private static final Logger LOG = Logger.getLogger(LabelsImporter.class);
+    /** Source name of the stream workbook. */
+    private static final String STREAM_SOURCE = "stream";
+    /**
+     * Import workbook.
+     * @param options import options.
+     * @param file xlsx file.
+     * @return changed keys.
+     * @throws ImportException import data is invalid, metadata wasn't
+     * changed.
+     * @throws Exception error.
+     */
+    public ChangeSet importFrom(final ImportOptions options, final Path file)
+            throws Exception {
+        return importFrom(options, Collections.singletonList(file));
+    }
+    /**
+     * Import several workbooks, merged in the given order.
+     * @param options import options.
+     * @param files xlsx files.
+     * @return changed keys.
+     * @throws ImportException import data is invalid, metadata wasn't
+     * changed.
+     * @throws Exception error.
+     */
+    public ChangeSet importFrom(final ImportOptions options,
+            final List<Path> files) throws Exception {
+        File projectFolder = checkProject(options);
+        if (files.isEmpty()) {
+            throw new ImportException("no import files");
+        }
+        for (Path f : files) {
+            if (!f.toFile().exists()) {
+                throw new ImportException("import file not exist! Path ["
+                        + f.toAbsolutePath() + "]");
+            }
+        }
+        // metadata is rewritten, readers and other writers must wait
+        ChangeSet changes = new ChangeSet();
+        try (ProjectLock lock = ProjectLock.exclusive(projectFolder,
+                options.getLockTimeout());
+                ChangeJournal journal = journal(options, changes)) {
+            importFiles(options, files, projectFolder, changes);
+            journal.complete();
+        }
+        writeChanges(changes, file(options.getChanges()));
+        return changes;
+    }
+    /**
+     * Import data from stream, the workbook is loaded into memory.
+     * @param options import options, pipeline option is ignored.
+     * @param in xlsx stream, read to the end and closed.
+     * @return changed keys.
+     * @throws ImportException import data is invalid, metadata wasn't
+     * changed.
+     * @throws Exception error.
+     */
+    public ChangeSet importFrom(final ImportOptions options,
+            final InputStream in) throws Exception {
+        File projectFolder = checkProject(options);
+        ChangeSet changes = new ChangeSet();
+        try (XlsxStreamReader.Session session = new XlsxStreamReader(
+                options.getProgress()).open(in);
+                ProjectLock lock = ProjectLock.exclusive(projectFolder,
+                        options.getLockTimeout());
+                ChangeJournal journal = journal(options, changes)) {
+            importWorkbooks(Collections.singletonMap(STREAM_SOURCE, session),
+                    projectFolder, options, changes);
+            journal.complete();
+        }
+        writeChanges(changes, file(options.getChanges()));
+        return changes;
+    }
+// ============================================================================
+    /**
+     * Import files, exclusive project lock is held.
+     * @param options import options.
+     * @param files xlsx files.
+     * @param projectFolder salesforce project folder.
+     * @param changes change set, gets changed keys.
+     * @throws Exception error.
+     */
+    private void importFiles(final ImportOptions options,
+            final List<Path> files, final File projectFolder,
+            final ChangeSet changes) throws Exception {
+        Progress progress = options.getProgress();
+        boolean sheets = options.isAllSheets() || options.getSheets() != null;
+        if (files.size() > 1 || sheets) {
+            LOG.info("import workbooks [" + files.size() + "], sheets ["
+                    + (options.isAllSheets() ? "all" : sheets
+                            ? options.getSheets() : "first")
+                    + "], conflict policy [" + options.getConflictPolicy()
+                    + "]");
+            Map<String, XlsxStreamReader.Session> sessions =
+                    new LinkedHashMap<>();
+            XlsxStreamReader reader = new XlsxStreamReader(progress);
+            try {
+                for (Path f : files) {
+                    sessions.put(f.getFileName().toString(),
+                            reader.open(f.toFile()));
+                }
+                importWorkbooks(sessions, projectFolder, options, changes);
+            } finally {
+                for (XlsxStreamReader.Session session : sessions.values()) {
+                    session.close();
+                }
+            }
+        } else if (options.isPipeline()) {
+            LOG.info("pipelined import");
+            new ImportPipeline(this).execute(files.get(0).toFile(),
+                    projectFolder, options, changes);
+        } else {
+            File importFile = files.get(0).toFile();
+            progress.phase("read", -1);
+            List<List<String>> table = extractImportData(importFile,
+                    progress);
+            if (options.isPrintTable()) {
+                printTable(table);
+            }
+            progress.phase("parse", -1);
+            CustomLabels customLabels = extractCustomLabels(
+                    customLabelsFile(projectFolder), progress);
+            TranslationValidator validator = validator(customLabels,
+                    projectFolder, options);
+            progress.phase("apply", table.size());
+            Map<String, Map<String, String>> langMap =
+                    createLanguageMap(table, validator, progress);
+            if (validator != null) {
+                writeValidationReport(validator, options);
+            }
+            Map<String, Translations> saved = writeChangesToMetadata(
+                    projectFolder, customLabels, langMap,
+                    file(options.getBackupDir()), changes, progress);
+            updateBaseline(file(options.getBaseline()), projectFolder,
+                    customLabels, saved, langMap);
+        }
+    }
+    /**
+     * Extract xlsx file data.
+     * @param file xlsx file.
+     * @param progress progress.
+     * @return table data.
+     * @throws Exception error.
+     */
+    private List<List<String>> extractImportData(final File file,
+            final Progress progress) throws Exception {
+        List<List<String>> table = new ArrayList<>();
+        LOG.info("start read import file...");
+        try (InputStream is = progress.track(new FileInputStream(file))) {
+            Workbook wb = new XSSFWorkbook(is);
+            Sheet sheet = wb.getSheetAt(0);
+            List<String> columns = new ArrayList<>();
+            Row firstRow = sheet.getRow(sheet.getFirstRowNum());
+            for (int k = firstRow.getFirstCellNum(); k <= firstRow.getLastCellNum(); k++) {
+                Cell cell = firstRow.getCell(k);
+                if (cell != null && cell.getStringCellValue() != null
+                        && !cell.getStringCellValue().trim().isEmpty()) {
+                    columns.add(cell.getStringCellValue());
+                }
+            }
+            int columnsCount = columns.size();
+            LOG.info("columns count [" + columnsCount + "]");
+            for (int i = sheet.getFirstRowNum(); i <= sheet.getLastRowNum(); i++) {
+                Row row = sheet.getRow(i);
+                List<String> rowData = new ArrayList<>();
+                for (int j = row.getFirstCellNum(); j <= row.getLastCellNum(); j++) {
+                    if (j >= columnsCount) {
+                        continue;
+                    }
+                    Cell cell = row.getCell(j);
+                    if (cell == null || cell.getStringCellValue() == null) {
+                        rowData.add("");
+                    } else {
+                        rowData.add(cell.getStringCellValue());
+                    }
+                }
+                table.add(rowData);
+                progress.increment();
+            }
+        }
+        LOG.info("import file was read...");
+        return table;
+    }
+    /**
+     * Check project folder and custom labels file.
+     * @param options import options.
+     * @return project folder.
+     * @throws ImportException project not found.
+     */
+    private File checkProject(final ImportOptions options)
+            throws ImportException {
+        if (options.getProjectSrc() == null) {
+            throw new ImportException("project folder isn't set");
+        }
+        File projectFolder = options.getProjectSrc().toFile();
+        if (!projectFolder.exists()) {
+            throw new ImportException("project folder not exist! Path ["
+                    + projectFolder.getAbsolutePath() + "]");
+        }
+        File customLabelsFile = customLabelsFile(projectFolder);
+        if (!customLabelsFile.exists()) {
+            throw new ImportException(ProjectFile.CUSTOM_LABELS
+                    + " not exist! Path [" + customLabelsFile.getAbsolutePath()
+                    + "]");
+        }
+        LOG.info(customLabelsFile.getAbsoluteFile() + " found");
+        return projectFolder;
+    }
+    /**
+     * Create validator.
+     * @param customLabels source custom labels.
+     * @param projectFolder salesforce project folder.
+     * @param options import options.
+     * @return validator, null if validation is disabled.
+     */
+    TranslationValidator validator(final CustomLabels customLabels,
+            final File projectFolder, final ImportOptions options) {
+        return options.getValidation() == null ? null
+                : new TranslationValidator(customLabels,
+                        metadataLanguages(projectFolder),
+                        options.getValidation());
+    }
+    /**
+     * Write validation report if it's requested.
+     * @param validator validator.
+     * @param options import options.
+     * @throws Exception error.
+     */
+    void writeValidationReport(final TranslationValidator validator,
+            final ImportOptions options) throws Exception {
+        if (options.getValidationReport() != null) {
+            validator.writeReport(options.getValidationReport().toFile());
+        }
+    }
+    /**
+     * Import several workbooks or sheets: read in parallel, merge and write
+     * metadata once.
+     * @param workbooks open workbooks by source name, in merge order.
+     * @param projectFolder salesforce project folder.
+     * @param options import options.
+     * @param changes change set, gets changed keys.
+     * @throws Exception error.
+     */
+    private void importWorkbooks(
+            final Map<String, XlsxStreamReader.Session> workbooks,
+            final File projectFolder, final ImportOptions options,
+            final ChangeSet changes) throws Exception {
+        Progress progress = options.getProgress();
+        progress.phase("parse", -1);
+        CustomLabels customLabels = extractCustomLabels(
+                customLabelsFile(projectFolder), progress);
+        TranslationValidator validator = validator(customLabels,
+                projectFolder, options);
+        progress.phase("read", -1);
+        List<String> sources = new ArrayList<>();
+        List<Callable<LanguageMapBuilder>> tasks = new ArrayList<>();
+        boolean first = !options.isAllSheets() && options.getSheets() == null;
+        workbooks.forEach((name, session) -> {
+            for (String sheet : selectSheets(name, session.getSheetNames(),
+                    options)) {
+                String source = first ? name : name + "[" + sheet + "]";
+                sources.add(source);
+                tasks.add(() -> {
+                    LanguageMapBuilder builder = new LanguageMapBuilder(
+                            validator == null ? null : validator.fork(source));
+                    session.read(sheet, builder::accept);
+                    LOG.info("sheet [" + source + "] was read, rows ["
+                            + builder.getRows() + "], unchanged rows skipped ["
+                            + builder.getSkipped() + "]");
+                    return builder;
+                });
+            }
+        });
+        List<LanguageMapBuilder> builders = invokeAll(tasks);
+        if (validator != null) {
+            writeValidationReport(validator, options);
+        }
+        LanguageMapMerger merger = new LanguageMapMerger(
+                options.getConflictPolicy());
+        for (int i = 0; i < sources.size(); i++) {
+            if (!builders.get(i).isValid()) {
+                throw new ImportException("invalid sheet [" + sources.get(i)
+                        + "], metadata wasn't changed");
+            }
+            merger.merge(sources.get(i), builders.get(i));
+        }
+        if (options.getConflictReport() != null) {
+            merger.writeReport(options.getConflictReport().toFile());
+        }
+        if (merger.isFailed()) {
+            throw new ImportException("merge conflicts ["
+                    + merger.getConflicts().size()
+                    + "] found, metadata wasn't changed");
+        }
+        Map<String, Map<String, String>> langMap = merger.getLanguageMap();
+        Map<String, Translations> saved = writeChangesToMetadata(
+                projectFolder, customLabels, langMap,
+                file(options.getBackupDir()), changes, progress);
+        updateBaseline(file(options.getBaseline()), projectFolder,
+                customLabels, saved, langMap);
+    }
+    /**
+     * Select sheets to import.
+     * @param workbook workbook name.
+     * @param names workbook sheet names.
+     * @param options import options.
+     * @return selected sheets in workbook order.
+     */
+    private List<String> selectSheets(final String workbook,
+            final List<String> names, final ImportOptions options) {
+        if (options.isAllSheets()) {
+            return names;
+        }
+        if (options.getSheets() == null) {
+            return names.isEmpty() ? names : names.subList(0, 1);
+        }
+        Set<String> selected = new HashSet<>(options.getSheets());
+        List<String> result = new ArrayList<>();
+        for (String name : names) {
+            if (selected.contains(name)) {
+                result.add(name);
+            }
+        }
+        if (result.isEmpty()) {
+            LOG.warn("no selected sheets in workbook [" + workbook
+                    + "], sheets " + names);
+        }
+        return result;
+    }
+    /**
+     * Reorder import data by language.
+     * @param table import data.
+     * @param validator inline validator, optional.
+     * @param progress progress.
+     * @return import data for every language.
+     * @throws ImportException invalid table structure.
+     */
+    private Map<String, Map<String, String>> createLanguageMap(
+            final List<List<String>> table,
+            final TranslationValidator validator, final Progress progress)
+            throws ImportException {
+        LanguageMapBuilder builder = new LanguageMapBuilder(validator);
+        for (int i = 0; i < table.size(); i++) {
+            builder.accept(i, table.get(i));
+            progress.increment();
+        }
+        if (!builder.isValid()) {
+            throw new ImportException("invalid table structure, metadata "
+                    + "wasn't changed");
+        }
+        LOG.info("applied rows [" + builder.getRows()
+                + "], unchanged rows skipped [" + builder.getSkipped() + "]");
+        return builder.getLanguageMap();
+    }
+    /**
+     * Write changes to metadata files.
+     * @param projectFolder salesforce project folder.
+     * @param customLabels parsed custom labels.
+     * @param langMap language map with translations.
+     * @param backupDir backup directory for original files, optional.
+     * @param changes change set, gets changed keys.
+     * @param progress progress.
+     * @return saved translations by language.
+     * @throws Exception error.
+     */
+    private Map<String, Translations> writeChangesToMetadata(
+            final File projectFolder, final CustomLabels customLabels,
+            final Map<String, Map<String, String>> langMap,
+            final File backupDir, final ChangeSet changes,
+            final Progress progress) throws Exception {
+        File customLabelsFile = customLabelsFile(projectFolder);
+        LOG.info("-----------------------------------------------------------");
+        LOG.info("            " + ProjectFile.CUSTOM_LABELS + " changes");
+        LOG.info("-----------------------------------------------------------");
+        Set<String> excludeLang = applyChanges(customLabels, langMap,
+                changes);
+        LOG.info("-----------------------------------------------------------");
+        List<Callable<Void>> tasks = new ArrayList<>();
+        Map<String, Translations> saved = new ConcurrentHashMap<>();
+        AtomicInteger staged = new AtomicInteger();
+        try (MetadataTransaction tx = new MetadataTransaction(backupDir)) {
+            // files without changes aren't rewritten
+            if (changes.contains(labelsPath())) {
+                tasks.add(() -> {
+                    tx.stage(customLabelsFile, (os) -> marshal(customLabels,
+                            progress.track(os)));
+                    staged.incrementAndGet();
+                    progress.increment();
+                    LOG.info(ProjectFile.CUSTOM_LABELS + " prepared...");
+                    return null;
+                });
+            }
+            // override translations
+            for (String lang : langMap.keySet()) {
+                if (excludeLang.contains(lang)) {
+                    LOG.info("language [" + lang + "] was saved to "
+                            + ProjectFile.CUSTOM_LABELS + " file, skip it...");
+                    continue;
+                }
+                File translationFile = translationFile(projectFolder, lang);
+                if (!translationFile.exists()) {
+                    LOG.warn("translation file ["
+                            + translationFile.getAbsolutePath()
+                            + "] isn't exists");
+                    continue;
+                }
+                tasks.add(() -> {
+                    Translations t = extractTranslations(translationFile,
+                            progress);
+                    applyChanges(t, langMap.get(lang),
+                            translationFile.getName(), changes);
+                    if (changes.contains(translationPath(
+                            translationFile.getName()))) {
+                        tx.stage(translationFile, (os) -> marshal(t,
+                                progress.track(os)));
+                        staged.incrementAndGet();
+                        LOG.info(translationFile.getName() + " prepared...");
+                    }
+                    progress.increment();
+                    saved.put(lang.trim(), t);
+                    return null;
+                });
+            }
+            progress.phase("write", tasks.size());
+            invokeAll(tasks);
+            progress.checkCancelled();
+            tx.commit();
+        }
+        LOG.info("metadata files saved [" + staged.get() + "], unchanged ["
+                + (tasks.size() - staged.get()) + "]");
+        LOG.info("-----------------------------------------------------------");
+        return saved;
+    }
+    /**
+     * Update baseline snapshot with imported labels.
+     * @param baselineFile baseline snapshot file, can be null.
+     * @param projectFolder salesforce project folder.
+     * @param customLabels custom labels after import.
+     * @param saved saved translations by language.
+     * @param langMap imported data.
+     * @throws Exception error.
+     */
+    void updateBaseline(final File baselineFile, final File projectFolder,
+            final CustomLabels customLabels,
+            final Map<String, Translations> saved,
+            final Map<String, Map<String, String>> langMap) throws Exception {
+        if (baselineFile == null) {
+            return;
+        }
+        BaselineSnapshot baseline = BaselineSnapshot.read(baselineFile);
+        BaselineSnapshot next = new BaselineSnapshot(baseline == null
+                ? baselineLanguages(projectFolder, langMap.keySet())
+                : baseline.getLanguages());
+        if (baseline != null) {
+            next.putAll(baseline);
+        }
+        Map<String, Map<String, String>> byLang = new HashMap<>();
+        for (String lang : next.getLanguages()) {
+            Translations t = saved.get(lang);
+            File f = translationFile(projectFolder, lang);
+            if (t == null && f.exists()) {
+                t = extractTranslations(f);
+            }
+            Map<String, String> map = new HashMap<>();
+            if (t != null) {
+                t.getCustomLabels().forEach((tr) -> {
+                    map.put(tr.getName(), tr.getLabel());
+                });
+            }
+            byLang.put(lang, map);
+        }
+        Set<String> imported = new HashSet<>();
+        langMap.values().forEach((m) -> {
+            imported.addAll(m.keySet());
+        });
+        for (CustomLabel cl : customLabels.getLabels()) {
+            if (imported.contains(cl.getFullName())) {
+                next.put(cl.getFullName(), next.fingerprint(cl, byLang));
+            }
+        }
+        next.write(baselineFile);
+        LOG.info("baseline saved [" + baselineFile.getAbsolutePath()
+                + "], labels [" + next.size() + "]");
+    }
+    /**
+     * Languages of a new baseline. The export builds the baseline from the
+     * exported languages that have a translation file, the workbook header
+     * has the exported languages, so the same filter gives the same set.
+     * @param projectFolder salesforce project folder.
+     * @param imported imported languages.
+     * @return languages with translation file.
+     */
+    private Set<String> baselineLanguages(final File projectFolder,
+            final Set<String> imported) {
+        Set<String> langs = new HashSet<>();
+        for (String lang : imported) {
+            if (translationFile(projectFolder, lang).exists()) {
+                langs.add(lang);
+            }
+        }
+        return langs;
+    }
+    /**
+     * Apply changes to custom labels.
+     * @param customLabels custom labels.
+     * @param langMap language map with translations.
+     * @param changes change set, gets changed keys.
+     * @return languages stored in custom labels file.
+     */
+    Set<String> applyChanges(final CustomLabels customLabels,
+            final Map<String, Map<String, String>> langMap,
+            final ChangeSet changes) {
+        String path = labelsPath();
+        Set<String> labelsLang = new HashSet<>();
+        customLabels.getLabels().forEach((cl) -> {
+            String lang = cl.getLanguage();
+            String tkey = cl.getFullName();
+            if (!(lang == null || tkey == null || !langMap.containsKey(lang))) {
+                labelsLang.add(lang);
+                Map<String, String> tMap = langMap.get(lang);
+                if (tMap.containsKey(tkey)) {
+                    String oldVal = cl.getValue() == null ? "" : cl.getValue();
+                    String newVal = tMap.get(tkey);
+                    if (!oldVal.equals(newVal)) {
+                        cl.setValue(newVal);
+                        changes.add(path, tkey, oldVal, newVal);
+                    }
+                }
+            }
+        });
+        return labelsLang;
+    }
+    /**
+     * Apply changes to translations.
+     * @param t translations.
+     * @param tmap translations for file language.
+     * @param fname translation file name.
+     * @param changes change set, gets changed keys.
+     */
+    void applyChanges(final Translations t, final Map<String, String> tmap,
+            final String fname, final ChangeSet changes) {
+        String path = translationPath(fname);
+        t.getCustomLabels().forEach((tr) -> {
+            String key = tr.getName();
+            String oldVal = tr.getLabel();
+            String newVal = tmap.get(key);
+            if (!oldVal.equals(newVal) && newVal != null) {
+                tr.setLabel(newVal);
+                changes.add(path, key, oldVal, newVal);
+            }
+        });
+    }
+    /**
+     * Open change journal of the import and attach it to the change set.
+     * @param options import options.
+     * @param changes change set.
+     * @return change journal.
+     * @throws IOException journal file error.
+     */
+    private ChangeJournal journal(final ImportOptions options,
+            final ChangeSet changes) throws IOException {
+        ChangeJournal journal = new ChangeJournal(file(options.getJournal()),
+                options.isEchoChanges());
+        changes.setJournal(journal);
+        return journal;
+    }
+    /**
+     * Write change set of the import.
+     * @param changes change set.
+     * @param file change set file, can be null.
+     * @throws Exception error.
+     */
+    private void writeChanges(final ChangeSet changes, final File file)
+            throws Exception {
+        if (file == null) {
+            LOG.info("changed files " + changes.getFiles());
+            return;
+        }
+        changes.write(file);
+        LOG.info("changed files " + changes.getFiles() + ", change set ["
+                + file.getAbsolutePath() + "]");
+    }
+    /**
+     * Get languages with translation files.
+     * @param projectFolder salesforce project folder.
+     * @return languages.
+     */
+    Set<String> metadataLanguages(final File projectFolder) {
+        Set<String> langs = new HashSet<>();
+        String suffix = String.format(ProjectFile.TMPL_TRANSLATION, "");
+        File[] files = new File(projectFolder, ProjectFolder.TRANSLATIONS)
+                .listFiles((dir, name) -> name.endsWith(suffix));
+        if (files != null) {
+            for (File f : files) {
+                String name = f.getName();
+                langs.add(name.substring(0, name.length() - suffix.length()));
+            }
+        }
+        return langs;
+    }
+    /**
+     * Get custom labels file.
+     * @param projectFolder salesforce project folder.
+     * @return custom labels file.
+     */
+    File customLabelsFile(final File projectFolder) {
+        return new File(projectFolder, ProjectFolder.CUSTOM_LABELS
+                + File.separator + ProjectFile.CUSTOM_LABELS);
+    }
+    /**
+     * Get translation file.
+     * @param projectFolder salesforce project folder.
+     * @param lang language.
+     * @return translation file.
+     */
+    File translationFile(final File projectFolder, final String lang) {
+        String fname = String.format(ProjectFile.TMPL_TRANSLATION, lang.trim());
+        return new File(projectFolder,
+                ProjectFolder.TRANSLATIONS + File.separator + fname);
+    }
+    /**
+     * @return change set path of the custom labels file.
+     */
+    static String labelsPath() {
+        return ProjectFolder.CUSTOM_LABELS + "/" + ProjectFile.CUSTOM_LABELS;
+    }
+    /**
+     * Change set path of translation file.
+     * @param fname translation file name.
+     * @return path relative to project 'src' folder.
+     */
+    static String translationPath(final String fname) {
+        return ProjectFolder.TRANSLATIONS + "/" + fname;
+    }
+    /**
+     * Convert optional path.
+     * @param path path, can be null.
+     * @return file or null.
+     */
+    static File file(final Path path) {
+        return path == null ? null : path.toFile();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.api;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pipeline stage statistics.
+ * @author ss
+ */
+class PipelineStage {
+    /** Stage name. */
+    private final String name;
+    /** Busy time. */
+    private final AtomicLong busyNanos = new AtomicLong();
+    /** Processed items. */
+    private final AtomicLong items = new AtomicLong();
+    /**
+     * Constructor.
+     * @param name stage name.
+     */
+    PipelineStage(final String name) {
+        this.name = name;
+    }
+    /**
+     * Run stage work and measure it.
+     * @param <T> result type.
+     * @param work stage work.
+     * @return work result.
+     * @throws CompletionException work error.
+     */
+    <T> T call(final Callable<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        } finally {
+            add(System.nanoTime() - start, 1);
+        }
+    }
+    /**
+     * Add busy time.
+     * @param nanos busy time.
+     * @param count processed items.
+     */
+    void add(final long nanos, final long count) {
+        busyNanos.addAndGet(nanos);
+        items.addAndGet(count);
+    }
+    /**
+     * Stage report.
+     * @param wallNanos pipeline wall time.
+     * @return report line, utilization over 100% means parallel work.
+     */
+    String report(final long wallNanos) {
+        long busy = busyNanos.get();
+        long percent = wallNanos == 0 ? 0 : busy * 100 / wallNanos;
+        return "stage [" + name + "], items [" + items.get() + "], busy ["
+                + TimeUnit.NANOSECONDS.toMillis(busy) + " ms], utilization ["
+                + percent + "%]";
+    }
+}
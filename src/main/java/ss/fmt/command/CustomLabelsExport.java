@@ -24,27 +24,26 @@
 package ss.fmt.command;
 
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FileNotFoundException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.Deflater;
 import org.apache.log4j.Logger;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Component;
-import ss.fmt.constants.ProjectFile;
-import ss.fmt.constants.ProjectFolder;
-import ss.fmt.jaxb.model.CustomLabel;
-import ss.fmt.jaxb.model.CustomLabels;
-import ss.fmt.jaxb.model.Translations;
-import ss.fmt.util.CustomLabelsUtil;
+import ss.fmt.api.ExportOptions;
+import ss.fmt.api.LabelsExporter;
+import ss.fmt.util.Progress;
+import ss.fmt.util.ProjectLock;
+import ss.fmt.util.WorkFolder;
+import ss.fmt.util.StandardOutput;
 import ss.lana.api.CommandArgument;
 import ss.lana.api.CommandExecutor;
 
@@ -53,8 +52,7 @@ import ss.lana.api.CommandExecutor;
  * @author ss
  */
 @Component
-class CustomLabelsExport extends CustomLabelsUtil
-        implements CommandExecutor {
+class CustomLabelsExport implements CommandExecutor {
     /** Logger. */
     private static final Logger LOG = Logger
             .getLogger(CustomLabelsExport.class);
@@ -67,7 +65,53 @@ class CustomLabelsExport extends CustomLabelsUtil
     private static final String ARG_CATEGORY = "category";
     /** Filter by prefix. */
     private static final String ARG_PREFIX = "prefix";
+    /** Export file or directory. */
+    private static final String ARG_OUTPUT = "output";
+    /** Output mode. */
+    private static final String ARG_OUTPUT_MODE = "output-mode";
+    /** Build and write rows in parallel. */
+    private static final String ARG_PARALLEL = "parallel";
+    /** Zip compression level for compact output. */
+    private static final String ARG_COMPRESSION_LEVEL = "compression-level";
+    /** Shard export by category, prefix or rows. */
+    private static final String ARG_SHARD_BY = "shard-by";
+    /** Rows per shard. */
+    private static final String ARG_SHARD_SIZE = "shard-size";
+    /** Export mode. */
+    private static final String ARG_MODE = "mode";
+    /** Baseline snapshot file path. */
+    private static final String ARG_BASELINE = "baseline";
+    /** Project lock wait timeout, seconds. */
+    private static final String ARG_LOCK_TIMEOUT = "lock-timeout";
 // ============================================================================
+    /** Export all labels. */
+    private static final String EXPORT_ALL = "all";
+    /** Export labels changed since baseline snapshot. */
+    private static final String EXPORT_SINCE_BASELINE = "since-baseline";
+    /** Export labels with missing translations. */
+    private static final String EXPORT_MISSING = "missing-translations";
+    /** Coverage summary file name. */
+    private static final String COVERAGE_FILE = "custom-labels-coverage.csv";
+    /** Default baseline snapshot file. */
+    static final String DEFAULT_BASELINE = "custom-labels.baseline";
+    /** Compact output mode. */
+    private static final String MODE_COMPACT = "compact";
+    /** Standard output mode. */
+    private static final String MODE_STANDARD = "standard";
+    /** Export file name. */
+    private static final String EXPORT_FILE = "custom-labels-export.xlsx";
+    /** Standard output. */
+    private static final String STDOUT = StandardOutput.ARG;
+    /** Shard by category. */
+    private static final String SHARD_BY_CATEGORY = "category";
+    /** Shard by key prefix. */
+    private static final String SHARD_BY_PREFIX = "prefix";
+    /** Shard by rows count. */
+    private static final String SHARD_BY_ROWS = "rows";
+    /** Default rows per shard. */
+    private static final int DEFAULT_SHARD_SIZE = 1000;
+    /** Exporter. */
+    private final LabelsExporter exporter = new LabelsExporter();
     @Override
     public String name() {
         return "custom-labels-export";
@@ -86,53 +130,111 @@ class CustomLabelsExport extends CustomLabelsUtil
         String languages = values.get(ARG_LANGUAGES);
         String category = values.get(ARG_CATEGORY);
         String prefix = values.get(ARG_PREFIX);
+        String output = values.get(ARG_OUTPUT);
+        String outputMode = values.get(ARG_OUTPUT_MODE) == null
+                ? MODE_STANDARD : values.get(ARG_OUTPUT_MODE);
+        if (!MODE_STANDARD.equals(outputMode)
+                && !MODE_COMPACT.equals(outputMode)) {
+            LOG.fatal("unknown output mode [" + outputMode + "]");
+            return;
+        }
+        ExportOptions options = new ExportOptions();
+        options.setProjectSrc(new File(projectPath).toPath());
+        List<String> langs = new ArrayList<>();
+        for (String lang : languages.split(",")) {
+            langs.add(lang);
+        }
+        options.setLanguages(langs);
+        options.setCategory(category);
+        options.setPrefix(prefix);
+        options.setCompact(MODE_COMPACT.equals(outputMode));
+        options.setParallel(Boolean.parseBoolean(values.get(ARG_PARALLEL)));
+        int level = values.get(ARG_COMPRESSION_LEVEL) == null
+                ? Deflater.DEFAULT_COMPRESSION
+                : Integer.parseInt(values.get(ARG_COMPRESSION_LEVEL));
+        if (level < Deflater.DEFAULT_COMPRESSION
+                || level > Deflater.BEST_COMPRESSION) {
+            LOG.fatal("invalid compression level [" + level
+                    + "], expected 0-9");
+            return;
+        }
+        options.setCompressionLevel(level);
+        String shardBy = values.get(ARG_SHARD_BY);
+        if (SHARD_BY_CATEGORY.equals(shardBy)) {
+            options.setShardBy(ExportOptions.ShardBy.CATEGORY);
+        } else if (SHARD_BY_PREFIX.equals(shardBy)) {
+            options.setShardBy(ExportOptions.ShardBy.PREFIX);
+        } else if (SHARD_BY_ROWS.equals(shardBy)) {
+            options.setShardBy(ExportOptions.ShardBy.ROWS);
+        } else if (shardBy != null) {
+            LOG.fatal("unknown shard mode [" + shardBy + "]");
+            return;
+        }
+        int shardSize = values.get(ARG_SHARD_SIZE) == null
+                ? DEFAULT_SHARD_SIZE
+                : Integer.parseInt(values.get(ARG_SHARD_SIZE));
+        if (shardSize <= 0) {
+            LOG.fatal("invalid shard size [" + shardSize + "]");
+            return;
+        }
+        options.setShardSize(shardSize);
+        String mode = values.get(ARG_MODE) == null
+                ? EXPORT_ALL : values.get(ARG_MODE);
+        if (EXPORT_ALL.equals(mode)) {
+            options.setMode(ExportOptions.ExportMode.ALL);
+        } else if (EXPORT_SINCE_BASELINE.equals(mode)) {
+            options.setMode(ExportOptions.ExportMode.SINCE_BASELINE);
+        } else if (EXPORT_MISSING.equals(mode)) {
+            options.setMode(ExportOptions.ExportMode.MISSING_TRANSLATIONS);
+        } else {
+            LOG.fatal("unknown export mode [" + mode + "]");
+            return;
+        }
+        File projectFolder = new File(projectPath);
+        if (!projectFolder.exists()) {
+            LOG.fatal("project folder not exist! Path ["
+                    + projectFolder.getAbsolutePath() + "]");
+            return;
+        }
+        options.setBaseline(WorkFolder.file(projectFolder,
+                values.get(ARG_BASELINE), DEFAULT_BASELINE).toPath());
+        options.setCoverageReport(WorkFolder.file(projectFolder,
+                COVERAGE_FILE).toPath());
+        options.setPrintTable(!STDOUT.equals(output));
         LOG.info("project absolute path [" + projectPath + "]");
         LOG.info("export languages [" + languages + "]");
+        LOG.info("export mode [" + mode + "]");
         if (category != null) {
             LOG.info("filter by category [" + category + "]");
         }
         if (prefix != null) {
             LOG.info("filter by prefix [" + prefix + "]");
         }
-        File customLabelsFile = new File(projectPath + File.separator
-                + ProjectFolder.CUSTOM_LABELS + File.separator
-                + ProjectFile.CUSTOM_LABELS);
-        if (customLabelsFile.exists()) {
-            LOG.info(customLabelsFile.getAbsoluteFile() + " found");
-        } else {
-            LOG.fatal(ProjectFile.CUSTOM_LABELS + " not exist! Path ["
-                    + customLabelsFile.getAbsolutePath() + "]");
+        if (values.get(ARG_LOCK_TIMEOUT) != null) {
+            options.setLockTimeout(TimeUnit.SECONDS.toMillis(
+                    Long.parseLong(values.get(ARG_LOCK_TIMEOUT))));
         }
-        Map<String, Map<String, String>> translationFiles = new HashMap<>();
-        for (String lang : languages.split(",")) {
-            File f = new File(projectPath + File.separator
-                    + ProjectFolder.TRANSLATIONS + File.separator
-                    + String.format(ProjectFile.TMPL_TRANSLATION, lang.trim()));
-            if (f.exists()) {
-                LOG.info("translations for '" + lang.trim() + "' found. Path ["
-                        + f.getAbsolutePath() + "]");
-                Translations t = extractTranslations(f);
-                Map<String, String> map = new HashMap<>();
-                t.getCustomLabels().forEach((cl) -> {
-                    map.put(cl.getName(), cl.getLabel());
-                });
-                translationFiles.put(lang, map);
+        try (Progress progress = Progress.start(name(), true)) {
+            options.setProgress(progress);
+            if (options.getShardBy() != null) {
+                exporter.exportShards(options,
+                        new File(output == null ? "." : output).toPath());
+            } else if (STDOUT.equals(output)) {
+                try (OutputStream os = StandardOutput.open()) {
+                    exporter.export(options, os);
+                }
             } else {
-                LOG.warn("translations for '" + lang.trim() + "' not found. "
-                        + "Path [" + f.getAbsolutePath() + "]");
+                exporter.export(options, new File(output == null
+                        ? EXPORT_FILE : output).toPath());
             }
+        } catch (FileNotFoundException e) {
+            LOG.fatal(e.getMessage());
+        } catch (TimeoutException e) {
+            LOG.fatal(e.getMessage());
+        } catch (CancellationException e) {
+            LOG.warn("export cancelled, output files removed");
         }
-        // Unmarshall files
-        CustomLabels customLabels = extractCustomLabels(customLabelsFile);
-        final Map<String, String> labelsMap = new HashMap<>();
-        customLabels.getLabels().stream().forEach((l) -> {
-            labelsMap.put(l.getFullName(), l.getShortDescription());
-        });
-        List<List<String>> table = createTableData(
-                translationFiles, customLabels, category, prefix);
-        printTable(table);
-        LOG.info("total rows [" + (table.size() - 1) + "]");
-        exportXlsx(table);
+        LOG.info(ProjectLock.metrics());
     }
     @Override
     public Set<CommandArgument> arguments() {
@@ -146,85 +248,41 @@ class CustomLabelsExport extends CustomLabelsUtil
                 "filter translations by custom label category", false));
         args.add(new CommandArgument(ARG_PREFIX,
                 "filter translations by key prefix", false));
+        args.add(new CommandArgument(ARG_OUTPUT,
+                "export file, '-' for standard output, default '"
+                        + EXPORT_FILE + "'. Directory for sharded export, "
+                        + "default is the current directory", false));
+        args.add(new CommandArgument(ARG_OUTPUT_MODE,
+                "'standard' (default) or 'compact': streaming writer, "
+                        + "shared strings and styles set once per column",
+                false));
+        args.add(new CommandArgument(ARG_PARALLEL,
+                "'true' to build rows on all cores and write them while "
+                        + "next rows are built, same output", false));
+        args.add(new CommandArgument(ARG_COMPRESSION_LEVEL,
+                "zip compression level 0-9 for compact output", false));
+        args.add(new CommandArgument(ARG_SHARD_BY,
+                "export into several workbooks in parallel: 'category', "
+                        + "'prefix' (key part before '_') or 'rows'", false));
+        args.add(new CommandArgument(ARG_SHARD_SIZE,
+                "rows per workbook for 'rows' sharding, default "
+                        + DEFAULT_SHARD_SIZE, false));
+        args.add(new CommandArgument(ARG_MODE,
+                "'all' (default), 'since-baseline': only labels new or "
+                        + "changed since the baseline snapshot, or "
+                        + "'missing-translations': only labels without value "
+                        + "in some language, with coverage summary "
+                        + "'" + WorkFolder.describe(COVERAGE_FILE) + "'",
+                false));
+        args.add(new CommandArgument(ARG_BASELINE,
+                "baseline snapshot file, updated after every export and "
+                        + "import, default '"
+                        + WorkFolder.describe(DEFAULT_BASELINE) + "'",
+                false));
+        args.add(new CommandArgument(ARG_LOCK_TIMEOUT,
+                "seconds to wait for other runs on the same project, "
+                        + "default " + TimeUnit.MILLISECONDS.toSeconds(
+                                ProjectLock.DEFAULT_TIMEOUT), false));
         return args;
     }
-// ====================== PRIVATE =============================================
-    /**
-     * Create table data.
-     * @param translationFiles translation files data.
-     * @param customLabels custom labels data.
-     * @param category filter by category.
-     * @param prefix  filter by prefix.
-     * @return table data.
-     */
-    private List<List<String>> createTableData(
-            final Map<String, Map<String, String>> translationFiles,
-            final CustomLabels customLabels,
-            final String category, final String prefix) {
-        List<List<String>> table = new ArrayList<>();
-        List<String> firstRow = new ArrayList<>();
-        firstRow.add("Translation key");
-        firstRow.add("Description");
-        table.add(firstRow);
-        translationFiles.keySet().forEach((lang) -> {
-            firstRow.add(lang);
-        });
-        for (CustomLabel cl : customLabels.getLabels()) {
-            String key = cl.getFullName();
-            // start of filter
-            if (category != null && !category.equals(cl.getCategories())) {
-                continue;
-            }
-            if (prefix != null && !key.startsWith(prefix)) {
-                continue;
-            }
-            // end of filter
-            List<String> row = new ArrayList<>();
-            row.add(key);
-            row.add(cl.getShortDescription());
-            for (String lang : translationFiles.keySet()) {
-                if (lang.equals(cl.getLanguage())) {
-                    row.add(cl.getValue());
-                } else {
-                    Map<String, String> tMap = translationFiles.get(lang);
-                    if (tMap.containsKey(cl.getFullName())) {
-                        row.add(tMap.get(cl.getFullName()));
-                    } else {
-                        row.add("");
-                    }
-                }
-            }
-            table.add(row);
-        }
-        return table;
-    }
-    /**
-     * Export data to XLSX file.
-     * @param table data table.
-     * @throws Exception error.
-     */
-    private void exportXlsx(final List<List<String>> table) throws Exception {
-        Workbook wb = new XSSFWorkbook();
-        Sheet sheet = wb.createSheet("custom labels");
-        int counter = 0;
-        CellStyle style = wb.createCellStyle();
-        style.setWrapText(true);
-        for (List<String> dataRow : table) {
-            sheet.setColumnWidth(counter, 10000);
-            Row row = sheet.createRow(counter);
-            for (int i = 0; i < dataRow.size(); i++) {
-                Cell cell = row.createCell(i);
-                cell.setCellStyle(style);
-                cell.setCellValue(dataRow.get(i));
-            }
-            row.setRowStyle(style);
-            counter++;
-        }
-        File file = new File("custom-labels-export.xlsx");
-        try (FileOutputStream fileOut = new FileOutputStream(file)) {
-            wb.write(fileOut);
-            LOG.info("translations saved in file [" + file.getAbsolutePath()
-                    + "]");
-        }
-    }
 }
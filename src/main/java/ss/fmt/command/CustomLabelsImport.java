@@ -24,28 +24,27 @@
 package ss.fmt.command;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Marshaller;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.apache.log4j.Logger;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Component;
-import ss.fmt.constants.ProjectFile;
-import ss.fmt.constants.ProjectFolder;
-import ss.fmt.jaxb.model.CustomLabels;
-import ss.fmt.jaxb.model.Translations;
-import ss.fmt.util.CustomLabelsUtil;
+import ss.fmt.api.ImportException;
+import ss.fmt.api.ImportOptions;
+import ss.fmt.api.LabelsImporter;
+import ss.fmt.util.LanguageMapMerger;
+import ss.fmt.util.Progress;
+import ss.fmt.util.ProjectLock;
+import ss.fmt.util.TranslationValidator;
+import ss.fmt.util.WorkFolder;
 import ss.lana.api.CommandArgument;
 import ss.lana.api.CommandExecutor;
 
@@ -54,7 +53,7 @@ import ss.lana.api.CommandExecutor;
  * @author ss
  */
 @Component
-class CustomLabelsImport extends CustomLabelsUtil implements CommandExecutor {
+class CustomLabelsImport implements CommandExecutor {
     /** Logger. */
     private static final Logger LOG = Logger
             .getLogger(CustomLabelsImport.class);
@@ -63,7 +62,42 @@ class CustomLabelsImport extends CustomLabelsUtil implements CommandExecutor {
     private static final String ARG_PROJECT_PATH = "project-src";
     /** Import file path. */
     private static final String ARG_IMPORT_FILE_PATH = "import-file-path";
+    /** Backup directory for original metadata files. */
+    private static final String ARG_BACKUP_DIR = "backup-dir";
+    /** Pipelined import. */
+    private static final String ARG_PIPELINE = "pipeline";
+    /** Validation mode. */
+    private static final String ARG_VALIDATION = "validation";
+    /** Baseline snapshot file path. */
+    private static final String ARG_BASELINE = "baseline";
+    /** Change set file path. */
+    private static final String ARG_CHANGES = "changes";
+    /** Imported sheets. */
+    private static final String ARG_SHEETS = "sheets";
+    /** Conflict policy for several workbooks. */
+    private static final String ARG_CONFLICT = "conflict";
+    /** Change journal file path. */
+    private static final String ARG_JOURNAL = "journal";
+    /** Log every changed key. */
+    private static final String ARG_ECHO_CHANGES = "echo-changes";
+    /** Project lock wait timeout, seconds. */
+    private static final String ARG_LOCK_TIMEOUT = "lock-timeout";
 // ============================================================================
+    /** Validation report file name. */
+    static final String VALIDATION_REPORT = "custom-labels-validation.csv";
+    /** Default change set file. */
+    static final String DEFAULT_CHANGES = "custom-labels-changes.csv";
+    /** Default change journal file. */
+    private static final String DEFAULT_JOURNAL = "custom-labels-journal.csv";
+    /** Merge conflicts report file name. */
+    private static final String CONFLICT_REPORT =
+            "custom-labels-conflicts.csv";
+    /** Import all sheets. */
+    private static final String SHEETS_ALL = "all";
+    /** Import workbook extension. */
+    private static final String XLSX = ".xlsx";
+    /** Importer. */
+    private final LabelsImporter importer = new LabelsImporter();
     @Override
     public String name() {
         return "custom-labels-import";
@@ -81,24 +115,92 @@ class CustomLabelsImport extends CustomLabelsUtil implements CommandExecutor {
         });
         String projectPath = values.get(ARG_PROJECT_PATH);
         String importFilePath = values.get(ARG_IMPORT_FILE_PATH);
+        String backupDir = values.get(ARG_BACKUP_DIR);
         LOG.info("project absolute path [" + projectPath + "]");
         LOG.info("import file path [" + importFilePath + "]");
-        File importFile = new File(importFilePath);
-        if (!importFile.exists()) {
-            LOG.fatal("import file not exist! Path ["
-                    + importFile.getAbsolutePath() + "]");
+        if (backupDir != null) {
+            LOG.info("backup directory [" + backupDir + "]");
+        }
+        List<Path> importFiles = importFiles(importFilePath);
+        if (importFiles.isEmpty()) {
+            LOG.fatal("no import files found! Path [" + importFilePath + "]");
             return;
         }
         File projectFolder = new File(projectPath);
+        ImportOptions options = new ImportOptions();
+        options.setProjectSrc(projectFolder.toPath());
+        if (backupDir != null) {
+            options.setBackupDir(new File(backupDir).toPath());
+        }
+        options.setPipeline(Boolean.parseBoolean(values.get(ARG_PIPELINE)));
+        String validation = values.get(ARG_VALIDATION);
+        if ("fail-fast".equals(validation)) {
+            options.setValidation(TranslationValidator.Mode.FAIL_FAST);
+        } else if ("report-only".equals(validation)) {
+            options.setValidation(TranslationValidator.Mode.REPORT_ONLY);
+        } else if (validation != null && !"off".equals(validation)) {
+            LOG.fatal("unknown validation mode [" + validation + "]");
+            return;
+        }
+        String sheets = values.get(ARG_SHEETS);
+        if (SHEETS_ALL.equals(sheets)) {
+            options.setAllSheets(true);
+        } else if (sheets != null) {
+            List<String> names = new ArrayList<>();
+            for (String name : sheets.split(",")) {
+                names.add(name.trim());
+            }
+            options.setSheets(names);
+        }
+        String conflict = values.get(ARG_CONFLICT);
+        if (conflict == null || "last-wins".equals(conflict)) {
+            options.setConflictPolicy(LanguageMapMerger.Policy.LAST_WINS);
+        } else if ("fail".equals(conflict)) {
+            options.setConflictPolicy(LanguageMapMerger.Policy.FAIL);
+        } else if ("prefer-non-empty".equals(conflict)) {
+            options.setConflictPolicy(
+                    LanguageMapMerger.Policy.PREFER_NON_EMPTY);
+        } else {
+            LOG.fatal("unknown conflict policy [" + conflict + "]");
+            return;
+        }
         if (!projectFolder.exists()) {
             LOG.fatal("project folder not exist! Path ["
                     + projectFolder.getAbsolutePath() + "]");
             return;
         }
-        List<List<String>> table = extractImportData(importFile);
-        printTable(table);
-        Map<String, Map<String, String>> langMap = createLanguageMap(table);
-        writeChangesToMetadata(projectFolder, langMap);
+        options.setValidationReport(WorkFolder.file(projectFolder,
+                VALIDATION_REPORT).toPath());
+        options.setConflictReport(WorkFolder.file(projectFolder,
+                CONFLICT_REPORT).toPath());
+        options.setBaseline(WorkFolder.file(projectFolder,
+                values.get(ARG_BASELINE), CustomLabelsExport.DEFAULT_BASELINE)
+                .toPath());
+        options.setChanges(WorkFolder.file(projectFolder,
+                values.get(ARG_CHANGES), DEFAULT_CHANGES).toPath());
+        options.setJournal(WorkFolder.file(projectFolder,
+                values.get(ARG_JOURNAL), DEFAULT_JOURNAL).toPath());
+        options.setEchoChanges(Boolean.parseBoolean(
+                values.get(ARG_ECHO_CHANGES)));
+        options.setPrintTable(true);
+        if (values.get(ARG_LOCK_TIMEOUT) != null) {
+            options.setLockTimeout(TimeUnit.SECONDS.toMillis(
+                    Long.parseLong(values.get(ARG_LOCK_TIMEOUT))));
+        }
+        try (Progress progress = Progress.start(name(), true)) {
+            options.setProgress(progress);
+            importer.importFrom(options, importFiles);
+        } catch (ImportException e) {
+            LOG.fatal(e.getMessage());
+        } catch (TranslationValidator.ValidationException e) {
+            LOG.fatal("validation failed, metadata wasn't changed: "
+                    + e.getMessage());
+        } catch (TimeoutException e) {
+            LOG.fatal(e.getMessage());
+        } catch (CancellationException e) {
+            LOG.warn("import cancelled, metadata wasn't changed");
+        }
+        LOG.info(ProjectLock.metrics());
     }
     @Override
     public Set<CommandArgument> arguments() {
@@ -106,184 +208,77 @@ class CustomLabelsImport extends CustomLabelsUtil implements CommandExecutor {
         args.add(new CommandArgument(ARG_PROJECT_PATH,
                 "path to project 'src' folder", true));
         args.add(new CommandArgument(ARG_IMPORT_FILE_PATH,
-                "path to import file", true));
+                "path to import file, several files separated by comma or "
+                        + "a directory with xlsx files: workbooks are read "
+                        + "in parallel and merged in this order", true));
+        args.add(new CommandArgument(ARG_BACKUP_DIR,
+                "directory for backup of original metadata files, "
+                        + "restored if import fails", false));
+        args.add(new CommandArgument(ARG_PIPELINE,
+                "'true' to overlap import file reading with metadata "
+                        + "parsing and writing, the table isn't printed",
+                false));
+        args.add(new CommandArgument(ARG_VALIDATION,
+                "validate import rows: 'off' (default), 'report-only' or "
+                        + "'fail-fast'. Checks placeholders, value length, "
+                        + "duplicate and unknown keys, unknown languages",
+                false));
+        args.add(new CommandArgument(ARG_BASELINE,
+                "baseline snapshot file, updated with imported labels, "
+                        + "default '" + WorkFolder.describe(
+                                CustomLabelsExport.DEFAULT_BASELINE) + "'",
+                false));
+        args.add(new CommandArgument(ARG_SHEETS,
+                "import several sheets in parallel: 'all' or sheet names "
+                        + "separated by comma, default is the first sheet",
+                false));
+        args.add(new CommandArgument(ARG_CONFLICT,
+                "conflict policy for several workbooks or sheets: "
+                        + "'last-wins' (default), 'fail' or "
+                        + "'prefer-non-empty', conflicts are reported to '"
+                        + WorkFolder.describe(CONFLICT_REPORT) + "'", false));
+        args.add(new CommandArgument(ARG_CHANGES,
+                "change set file with changed keys per metadata file, input "
+                        + "for 'custom-labels-package', default '"
+                        + WorkFolder.describe(DEFAULT_CHANGES) + "'", false));
+        args.add(new CommandArgument(ARG_JOURNAL,
+                "change journal with old and new value of every changed key, "
+                        + "default '" + WorkFolder.describe(DEFAULT_JOURNAL)
+                        + "'", false));
+        args.add(new CommandArgument(ARG_ECHO_CHANGES,
+                "'true' to log every changed key, by default only totals "
+                        + "per file are logged", false));
+        args.add(new CommandArgument(ARG_LOCK_TIMEOUT,
+                "seconds to wait for other runs on the same project, "
+                        + "default " + TimeUnit.MILLISECONDS.toSeconds(
+                                ProjectLock.DEFAULT_TIMEOUT), false));
         return args;
     }
-// ============================================================================
+// ====================== PRIVATE =============================================
     /**
-     * Extract xlsx file data.
-     * @param file xlsx file.
-     * @return table data.
-     * @throws Exception error.
+     * Get import files.
+     * @param importFilePath file, files separated by comma or directory.
+     * @return import files, directory files sorted by name.
      */
-    private List<List<String>> extractImportData(final File file)
-            throws Exception {
-        List<List<String>> table = new ArrayList<>();
-        LOG.info("start read import file...");
-        try (InputStream is = new FileInputStream(file)) {
-            Workbook wb = new XSSFWorkbook(is);
-            Sheet sheet = wb.getSheetAt(0);
-            List<String> columns = new ArrayList<>();
-            Row firstRow = sheet.getRow(sheet.getFirstRowNum());
-            for (int k = firstRow.getFirstCellNum(); k <= firstRow.getLastCellNum(); k++) {
-                Cell cell = firstRow.getCell(k);
-                if (cell != null && cell.getStringCellValue() != null
-                        && !cell.getStringCellValue().trim().isEmpty()) {
-                    columns.add(cell.getStringCellValue());
+    private List<Path> importFiles(final String importFilePath) {
+        List<Path> files = new ArrayList<>();
+        File dir = new File(importFilePath);
+        if (dir.isDirectory()) {
+            File[] list = dir.listFiles((d, name) -> name.endsWith(XLSX)
+                    && !name.startsWith("~$"));
+            if (list != null) {
+                Arrays.sort(list);
+                for (File f : list) {
+                    files.add(f.toPath());
                 }
             }
-            int columnsCount = columns.size();
-            LOG.info("columns count [" + columnsCount + "]");
-            for (int i = sheet.getFirstRowNum(); i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                List<String> rowData = new ArrayList<>();
-                for (int j = row.getFirstCellNum(); j <= row.getLastCellNum(); j++) {
-                    if (j >= columnsCount) {
-                        continue;
-                    }
-                    Cell cell = row.getCell(j);
-                    if (cell == null || cell.getStringCellValue() == null) {
-                        rowData.add("");
-                    } else {
-                        rowData.add(cell.getStringCellValue());
-                    }
-                }
-                table.add(rowData);
-            }
-        }
-        LOG.info("import file was read...");
-        return table;
-    }
-    /**
-     * Reorder import data by language.
-     * @param table import data.
-     * @return import data for every language.
-     */
-    private Map<String, Map<String, String>> createLanguageMap(
-            final List<List<String>> table) {
-        Map<String, Map<String, String>> map = new HashMap<>();
-        if (table.isEmpty()) {
-            return map;
-        }
-        Map<Integer, String> langColumns = new HashMap<>();
-        List<String> firstRow = table.get(0);
-        if (firstRow.size() < 3) {
-            LOG.fatal("invalid table structure! Forced exit...");
-            return map;
+            return files;
         }
-        for (int i = 0; i < firstRow.size(); i++) {
-            if (i < 2) {
-                continue;
+        for (String path : importFilePath.split(",")) {
+            if (!path.trim().isEmpty()) {
+                files.add(new File(path.trim()).toPath());
             }
-            String lang = firstRow.get(i);
-            if (lang == null || lang.trim().isEmpty()) {
-                continue;
-            }
-            langColumns.put(i, lang);
-            map.put(lang, new HashMap<>());
-            LOG.info("language found [" + lang + "]");
-        }
-        for (int i = 1; i < table.size(); i++) {
-            List<String> row = table.get(i);
-            if (row.size() < 2 + langColumns.size()) {
-                LOG.warn("invalid row [" + i + "]");
-                continue;
-            }
-            String tkey = row.get(0);
-            for (int j = 2; j < row.size(); j++) {
-                String langKey = langColumns.get(j);
-                if (langKey != null && map.containsKey(langKey)) {
-                    map.get(langKey).put(tkey, row.get(j));
-                }
-            }
-        }
-        return map;
-    }
-    /**
-     * Write changes to metadata files.
-     * @param projectFolder salesforce project folder.
-     * @param langMap language map with translations.
-     * @throws Exception error.
-     */
-    private void writeChangesToMetadata(final File projectFolder,
-            final Map<String, Map<String, String>> langMap) throws Exception {
-        File customLabelsFile = new File(projectFolder,
-                ProjectFolder.CUSTOM_LABELS + File.separator
-                + ProjectFile.CUSTOM_LABELS);
-        if (customLabelsFile.exists()) {
-            LOG.info(customLabelsFile.getAbsoluteFile() + " found");
-        } else {
-            LOG.fatal(ProjectFile.CUSTOM_LABELS + " not exist! Path ["
-                    + customLabelsFile.getAbsolutePath() + "]");
-            return;
-        }
-        Set<String> excludeLang = new HashSet<>();
-        LOG.info("-----------------------------------------------------------");
-        LOG.info("            " + ProjectFile.CUSTOM_LABELS + " changes");
-        LOG.info("-----------------------------------------------------------");
-        CustomLabels customLabels = extractCustomLabels(customLabelsFile);
-        customLabels.getLabels().forEach((cl) -> {
-            String lang = cl.getLanguage();
-            String tkey = cl.getFullName();
-            if (!(lang == null || tkey == null || !langMap.containsKey(lang))) {
-                excludeLang.add(lang);
-                Map<String, String> tMap = langMap.get(lang);
-                if (tMap.containsKey(tkey)) {
-                    String oldVal = cl.getValue() == null ? "" : cl.getValue();
-                    String newVal = tMap.get(tkey);
-                    LOG.debug("key [" + tkey + "], old value [" + oldVal
-                            + "], new value [" + newVal + "]");
-                    if (!oldVal.equals(newVal)) {
-                        cl.setValue(newVal);
-                        LOG.info("key [" + tkey + "], old value [" + oldVal
-                                + "], new value [" + newVal + "]");
-                    }
-                }
-            }
-        });
-        LOG.info("-----------------------------------------------------------");
-        JAXBContext jaxbContext = JAXBContext.newInstance(CustomLabels.class);
-	Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
-        jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-        jaxbMarshaller.marshal(customLabels, customLabelsFile);
-        LOG.info(ProjectFile.CUSTOM_LABELS + " saved...");
-        // override translations
-        for (String lang : langMap.keySet()) {
-            if (excludeLang.contains(lang)) {
-                LOG.info("language [" + lang + "] was saved to "
-                        + ProjectFile.CUSTOM_LABELS + " file, skip it...");
-                continue;
-            }
-            String fname = String
-                    .format(ProjectFile.TMPL_TRANSLATION, lang.trim());
-            File translationFile = new File(projectFolder,
-                    ProjectFolder.TRANSLATIONS + File.separator + fname);
-            if (!translationFile.exists()) {
-                LOG.warn("translation file ["
-                        + translationFile.getAbsolutePath() + "] isn't exists");
-                continue;
-            }
-            LOG.info("-----------------------------------------------------------");
-            LOG.info("            " + fname + " changes");
-            LOG.info("-----------------------------------------------------------");
-            Translations t = extractTranslations(translationFile);
-            Map<String, String> tmap = langMap.get(lang);
-            t.getCustomLabels().forEach((tr) -> {
-                String key = tr.getName();
-                String oldVal = tr.getLabel();
-                String newVal = tmap.get(key);
-                if (!oldVal.equals(newVal) && newVal != null) {
-                    tr.setLabel(newVal);
-                    LOG.info("key [" + key + "], old value [" + oldVal
-                            + "], new value [" + newVal + "]");
-                }
-            });
-            jaxbContext = JAXBContext.newInstance(Translations.class);
-            jaxbMarshaller = jaxbContext.createMarshaller();
-            jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-            jaxbMarshaller.marshal(t, translationFile);
-            LOG.info(fname + " saved...");
-            LOG.info("-----------------------------------------------------------");
         }
+        return files;
     }
 }
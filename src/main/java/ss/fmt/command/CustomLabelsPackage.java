@@ -0,0 +1,329 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.command;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+import org.apache.log4j.Logger;
+import org.springframework.stereotype.Component;
+import ss.fmt.constants.ForceCom;
+import ss.fmt.constants.ProjectFile;
+import ss.fmt.constants.ProjectFolder;
+import ss.fmt.jaxb.model.CustomLabel;
+import ss.fmt.jaxb.model.CustomLabels;
+import ss.fmt.jaxb.model.Translation;
+import ss.fmt.jaxb.model.Translations;
+import ss.fmt.util.ChangeSet;
+import ss.fmt.util.CountingOutputStream;
+import ss.fmt.util.CustomLabelsUtil;
+import ss.fmt.util.ProjectLock;
+import ss.fmt.util.WorkFolder;
+import ss.lana.api.CommandArgument;
+import ss.lana.api.CommandExecutor;
+
+/**
+ * Build deploy package from metadata changed by import.
+ * @author ss
+ */
+@Component
+class CustomLabelsPackage extends CustomLabelsUtil
+        implements CommandExecutor {
+    /** Logger. */
+    private static final Logger LOG = Logger
+            .getLogger(CustomLabelsPackage.class);
+// ============================= ARGS =========================================
+    /** Salesforce project 'src' folder path. */
+    private static final String ARG_PROJECT_PATH = "project-src";
+    /** Change set file path. */
+    private static final String ARG_CHANGES = "changes";
+    /** Package file path. */
+    private static final String ARG_OUTPUT = "output";
+    /** Metadata API version. */
+    private static final String ARG_API_VERSION = "api-version";
+    /** Package content. */
+    private static final String ARG_CONTENT = "content";
+    /** Project lock wait timeout, seconds. */
+    private static final String ARG_LOCK_TIMEOUT = "lock-timeout";
+// ============================================================================
+    /** Default package file. */
+    private static final String DEFAULT_OUTPUT = "custom-labels-package.zip";
+    /** Default metadata API version. */
+    private static final String DEFAULT_API_VERSION = "42.0";
+    /** Whole changed files. */
+    private static final String CONTENT_FILES = "files";
+    /** Changed labels only. */
+    private static final String CONTENT_LABELS = "labels";
+    /** Package manifest entry. */
+    private static final String PACKAGE_XML = "package.xml";
+    /** Custom labels file type. */
+    private static final String TYPE_CUSTOM_LABELS = "CustomLabels";
+    /** Custom label type. */
+    private static final String TYPE_CUSTOM_LABEL = "CustomLabel";
+    /** Translations type. */
+    private static final String TYPE_TRANSLATIONS = "Translations";
+    /** Object translations type. */
+    private static final String TYPE_OBJECT_TRANSLATION =
+            "CustomObjectTranslation";
+    @Override
+    public String name() {
+        return "custom-labels-package";
+    }
+    @Override
+    public String description() {
+        return "build deploy package (zip) from metadata changed by import";
+    }
+    @Override
+    public void execute(final List<CommandArgument> args) throws Exception {
+        final Map<String, String> values = new HashMap<>();
+        args.stream().forEach((arg) -> {
+            values.put(arg.getName(), arg.getValue());
+        });
+        File projectFolder = new File(values.get(ARG_PROJECT_PATH));
+        File changesFile = values.get(ARG_CHANGES) == null
+                ? new File(WorkFolder.of(projectFolder),
+                        CustomLabelsImport.DEFAULT_CHANGES)
+                : new File(values.get(ARG_CHANGES));
+        File output = new File(values.get(ARG_OUTPUT) == null
+                ? DEFAULT_OUTPUT : values.get(ARG_OUTPUT));
+        String apiVersion = values.get(ARG_API_VERSION) == null
+                ? DEFAULT_API_VERSION : values.get(ARG_API_VERSION);
+        String content = values.get(ARG_CONTENT) == null
+                ? CONTENT_FILES : values.get(ARG_CONTENT);
+        long lockTimeout = values.get(ARG_LOCK_TIMEOUT) == null
+                ? ProjectLock.DEFAULT_TIMEOUT : TimeUnit.SECONDS.toMillis(
+                        Long.parseLong(values.get(ARG_LOCK_TIMEOUT)));
+        if (!CONTENT_FILES.equals(content)
+                && !CONTENT_LABELS.equals(content)) {
+            LOG.fatal("unknown package content [" + content + "]");
+            return;
+        }
+        if (!projectFolder.exists()) {
+            LOG.fatal("project folder not exist! Path ["
+                    + projectFolder.getAbsolutePath() + "]");
+            return;
+        }
+        if (!changesFile.exists()) {
+            LOG.fatal("change set not exist! Path ["
+                    + changesFile.getAbsolutePath() + "]");
+            return;
+        }
+        LOG.info("project absolute path [" + projectFolder + "]");
+        LOG.info("change set [" + changesFile.getAbsolutePath() + "]");
+        LOG.info("package content [" + content + "]");
+        ChangeSet changes = ChangeSet.read(changesFile);
+        if (changes.isEmpty()) {
+            LOG.warn("change set is empty, nothing to deploy");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long size;
+        try (CountingOutputStream os = new CountingOutputStream(
+                new BufferedOutputStream(new FileOutputStream(output)))) {
+            ZipOutputStream zos = new ZipOutputStream(os);
+            Map<String, Set<String>> members;
+            try (ProjectLock lock = ProjectLock.shared(projectFolder,
+                    lockTimeout)) {
+                members = writeMetadata(zos, projectFolder, changes,
+                        CONTENT_LABELS.equals(content));
+            }
+            zos.putNextEntry(new ZipEntry(PACKAGE_XML));
+            writePackageXml(zos, members, apiVersion);
+            zos.closeEntry();
+            zos.finish();
+            os.flush();
+            size = os.getCount();
+        } catch (TimeoutException e) {
+            Files.deleteIfExists(output.toPath());
+            LOG.fatal(e.getMessage());
+            return;
+        } catch (Exception e) {
+            Files.deleteIfExists(output.toPath());
+            throw e;
+        }
+        LOG.info("deploy package saved [" + output.getAbsolutePath()
+                + "], size [" + size + " bytes], time ["
+                + (System.currentTimeMillis() - start) + " ms]");
+    }
+    @Override
+    public Set<CommandArgument> arguments() {
+        Set<CommandArgument> args = new HashSet<>();
+        args.add(new CommandArgument(ARG_PROJECT_PATH,
+                "path to project 'src' folder", true));
+        args.add(new CommandArgument(ARG_CHANGES,
+                "change set file written by 'custom-labels-import', default '"
+                        + WorkFolder.describe(
+                                CustomLabelsImport.DEFAULT_CHANGES) + "'",
+                false));
+        args.add(new CommandArgument(ARG_OUTPUT,
+                "package file, default '" + DEFAULT_OUTPUT + "'", false));
+        args.add(new CommandArgument(ARG_API_VERSION,
+                "metadata API version, default " + DEFAULT_API_VERSION,
+                false));
+        args.add(new CommandArgument(ARG_CONTENT,
+                "'files' (default): whole changed files or 'labels': "
+                        + "changed labels only, object translations are "
+                        + "always whole files", false));
+        args.add(new CommandArgument(ARG_LOCK_TIMEOUT,
+                "seconds to wait for an import into the same project, "
+                        + "default " + TimeUnit.MILLISECONDS.toSeconds(
+                                ProjectLock.DEFAULT_TIMEOUT), false));
+        return args;
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Stream changed metadata into package.
+     * @param zos package stream.
+     * @param projectFolder salesforce project folder.
+     * @param changes change set.
+     * @param labelsOnly write changed labels only.
+     * @return package members by metadata type.
+     * @throws Exception error.
+     */
+    private Map<String, Set<String>> writeMetadata(final ZipOutputStream zos,
+            final File projectFolder, final ChangeSet changes,
+            final boolean labelsOnly) throws Exception {
+        String labelsPath = ProjectFolder.CUSTOM_LABELS + "/"
+                + ProjectFile.CUSTOM_LABELS;
+        String tPrefix = ProjectFolder.TRANSLATIONS + "/";
+        String tSuffix = String.format(ProjectFile.TMPL_TRANSLATION, "");
+        String oPrefix = ProjectFolder.OBJECT_TRANSLATIONS + "/";
+        Map<String, Set<String>> members = new TreeMap<>();
+        for (String path : changes.getFiles()) {
+            String lang = null;
+            if (path.startsWith(tPrefix) && path.endsWith(tSuffix)) {
+                lang = path.substring(tPrefix.length(),
+                        path.length() - tSuffix.length());
+            }
+            String object = null;
+            if (path.startsWith(oPrefix)
+                    && path.endsWith(ProjectFile.OBJECT_TRANSLATION_SUFFIX)) {
+                object = path.substring(oPrefix.length(), path.length()
+                        - ProjectFile.OBJECT_TRANSLATION_SUFFIX.length());
+            }
+            File file = new File(projectFolder, path);
+            boolean known = labelsPath.equals(path)
+                    || (object != null && !object.isEmpty()
+                    && object.indexOf('/') < 0)
+                    || (lang != null && !lang.isEmpty()
+                    && lang.indexOf('/') < 0);
+            if (!known || !file.exists()) {
+                LOG.warn("skip changed file [" + path + "]");
+                continue;
+            }
+            Set<String> keys = changes.getKeys(path);
+            zos.putNextEntry(new ZipEntry(path));
+            if (!labelsOnly || object != null) {
+                Files.copy(file.toPath(), zos);
+            } else if (lang == null) {
+                CustomLabels cl = extractCustomLabels(file);
+                List<CustomLabel> changed = new ArrayList<>();
+                cl.getLabels().forEach((l) -> {
+                    if (keys.contains(l.getFullName())) {
+                        changed.add(l);
+                    }
+                });
+                cl.setLabels(changed);
+                marshal(cl, zos);
+            } else {
+                Translations t = extractTranslations(file);
+                List<Translation> changed = new ArrayList<>();
+                t.getCustomLabels().forEach((tr) -> {
+                    if (keys.contains(tr.getName())) {
+                        changed.add(tr);
+                    }
+                });
+                t.setCustomLabels(changed);
+                marshal(t, zos);
+            }
+            zos.closeEntry();
+            if (object != null) {
+                members.computeIfAbsent(TYPE_OBJECT_TRANSLATION,
+                        (k) -> new TreeSet<>()).add(object);
+            } else if (lang != null) {
+                members.computeIfAbsent(TYPE_TRANSLATIONS,
+                        (k) -> new TreeSet<>()).add(lang);
+            } else if (labelsOnly) {
+                members.computeIfAbsent(TYPE_CUSTOM_LABEL,
+                        (k) -> new TreeSet<>()).addAll(keys);
+            } else {
+                members.computeIfAbsent(TYPE_CUSTOM_LABELS,
+                        (k) -> new TreeSet<>()).add(TYPE_CUSTOM_LABELS);
+            }
+            LOG.info("package entry [" + path + "], changed keys ["
+                    + keys.size() + "]");
+        }
+        return members;
+    }
+    /**
+     * Write package manifest.
+     * @param os output stream, not closed.
+     * @param members package members by metadata type.
+     * @param apiVersion metadata API version.
+     * @throws Exception error.
+     */
+    private void writePackageXml(final OutputStream os,
+            final Map<String, Set<String>> members, final String apiVersion)
+            throws Exception {
+        XMLStreamWriter xml = XMLOutputFactory.newInstance()
+                .createXMLStreamWriter(os, "UTF-8");
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.writeStartElement("Package");
+        xml.writeDefaultNamespace(ForceCom.METADATA_NAMESPACE);
+        for (Map.Entry<String, Set<String>> type : members.entrySet()) {
+            xml.writeStartElement("types");
+            for (String member : type.getValue()) {
+                xml.writeStartElement("members");
+                xml.writeCharacters(member);
+                xml.writeEndElement();
+            }
+            xml.writeStartElement("name");
+            xml.writeCharacters(type.getKey());
+            xml.writeEndElement();
+            xml.writeEndElement();
+        }
+        xml.writeStartElement("version");
+        xml.writeCharacters(apiVersion);
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeEndDocument();
+        xml.flush();
+    }
+}
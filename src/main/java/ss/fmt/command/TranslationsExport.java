@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.command;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.Deflater;
+import org.apache.log4j.Logger;
+import org.springframework.stereotype.Component;
+import ss.fmt.metadata.MetadataDescriptor;
+import ss.fmt.metadata.MetadataEngine;
+import ss.fmt.metadata.MetadataTypes;
+import ss.fmt.util.Progress;
+import ss.fmt.util.ProjectLock;
+import ss.fmt.util.StandardOutput;
+import ss.lana.api.CommandArgument;
+import ss.lana.api.CommandExecutor;
+
+/**
+ * Export translations of several metadata types in one pass.
+ * @author ss
+ */
+@Component
+class TranslationsExport implements CommandExecutor {
+    /** Logger. */
+    private static final Logger LOG = Logger
+            .getLogger(TranslationsExport.class);
+// ============================= ARGS =========================================
+    /** Salesforce project 'src' folder path. */
+    private static final String ARG_PROJECT_PATH = "project-src";
+    /** Exported languages. */
+    private static final String ARG_LANGUAGES = "languages";
+    /** Exported metadata types. */
+    private static final String ARG_TYPES = "types";
+    /** Export file. */
+    private static final String ARG_OUTPUT = "output";
+    /** Zip compression level. */
+    private static final String ARG_COMPRESSION_LEVEL = "compression-level";
+    /** Project lock wait timeout, seconds. */
+    private static final String ARG_LOCK_TIMEOUT = "lock-timeout";
+// ============================================================================
+    /** Export file name. */
+    private static final String EXPORT_FILE = "translations-export.xlsx";
+    /** Standard output. */
+    private static final String STDOUT = StandardOutput.ARG;
+    @Override
+    public String name() {
+        return "translations-export";
+    }
+    @Override
+    public String description() {
+        return "export translations of custom labels, fields, picklist "
+                + "values and other metadata types to xlsx";
+    }
+    @Override
+    public void execute(final List<CommandArgument> args) throws Exception {
+        final Map<String, String> values = new HashMap<>();
+        args.stream().forEach((arg) -> {
+            values.put(arg.getName(), arg.getValue());
+        });
+        File projectFolder = new File(values.get(ARG_PROJECT_PATH));
+        List<String> languages = new ArrayList<>();
+        for (String lang : values.get(ARG_LANGUAGES).split(",")) {
+            languages.add(lang.trim());
+        }
+        List<MetadataDescriptor> types;
+        try {
+            types = values.get(ARG_TYPES) == null ? MetadataTypes.ALL
+                    : MetadataTypes.byName(Arrays.asList(
+                            values.get(ARG_TYPES).split(",")));
+        } catch (IllegalArgumentException e) {
+            LOG.fatal(e.getMessage());
+            return;
+        }
+        String output = values.get(ARG_OUTPUT) == null
+                ? EXPORT_FILE : values.get(ARG_OUTPUT);
+        int level = values.get(ARG_COMPRESSION_LEVEL) == null
+                ? Deflater.DEFAULT_COMPRESSION
+                : Integer.parseInt(values.get(ARG_COMPRESSION_LEVEL));
+        if (level < Deflater.DEFAULT_COMPRESSION
+                || level > Deflater.BEST_COMPRESSION) {
+            LOG.fatal("invalid compression level [" + level
+                    + "], expected 0-9");
+            return;
+        }
+        long lockTimeout = values.get(ARG_LOCK_TIMEOUT) == null
+                ? ProjectLock.DEFAULT_TIMEOUT : TimeUnit.SECONDS.toMillis(
+                        Long.parseLong(values.get(ARG_LOCK_TIMEOUT)));
+        if (!projectFolder.exists()) {
+            LOG.fatal("project folder not exist! Path ["
+                    + projectFolder.getAbsolutePath() + "]");
+            return;
+        }
+        LOG.info("project absolute path [" + projectFolder + "]");
+        LOG.info("export languages " + languages);
+        LOG.info("export types " + types);
+        File file = STDOUT.equals(output) ? null : new File(output);
+        try (Progress progress = Progress.start(name(), true)) {
+            MetadataEngine engine = new MetadataEngine(types, progress);
+            OutputStream os = file == null ? StandardOutput.open()
+                    : new BufferedOutputStream(new FileOutputStream(file));
+            try (ProjectLock lock = ProjectLock.shared(projectFolder,
+                    lockTimeout)) {
+                int rows = engine.export(projectFolder, languages, os, level);
+                LOG.info("exported rows [" + rows + "]");
+            } catch (Exception e) {
+                os.close();
+                if (file != null) {
+                    Files.deleteIfExists(file.toPath());
+                }
+                throw e;
+            }
+            os.close();
+            if (file != null) {
+                LOG.info("export file saved [" + file.getAbsolutePath()
+                        + "]");
+            }
+        } catch (TimeoutException e) {
+            LOG.fatal(e.getMessage());
+        } catch (CancellationException e) {
+            LOG.warn("export cancelled, output file removed");
+        }
+        LOG.info(ProjectLock.metrics());
+    }
+    @Override
+    public Set<CommandArgument> arguments() {
+        Set<CommandArgument> args = new HashSet<>();
+        args.add(new CommandArgument(ARG_PROJECT_PATH,
+                "path to project 'src' folder", true));
+        args.add(new CommandArgument(ARG_LANGUAGES,
+                "list of the languages separated by comma, "
+                        + "example: 'en_US, de'", true));
+        args.add(new CommandArgument(ARG_TYPES,
+                "metadata types separated by comma, default all: "
+                        + MetadataTypes.ALL, false));
+        args.add(new CommandArgument(ARG_OUTPUT,
+                "export file, '-' for standard output, default '"
+                        + EXPORT_FILE + "'", false));
+        args.add(new CommandArgument(ARG_COMPRESSION_LEVEL,
+                "zip compression level 0-9", false));
+        args.add(new CommandArgument(ARG_LOCK_TIMEOUT,
+                "seconds to wait for an import into the same project, "
+                        + "default " + TimeUnit.MILLISECONDS.toSeconds(
+                                ProjectLock.DEFAULT_TIMEOUT), false));
+        return args;
+    }
+}
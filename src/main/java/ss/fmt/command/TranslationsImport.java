@@ -0,0 +1,193 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.command;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.log4j.Logger;
+import org.springframework.stereotype.Component;
+import ss.fmt.metadata.MetadataDescriptor;
+import ss.fmt.metadata.MetadataEngine;
+import ss.fmt.metadata.MetadataTypes;
+import ss.fmt.util.ChangeJournal;
+import ss.fmt.util.ChangeSet;
+import ss.fmt.util.LanguageMapBuilder;
+import ss.fmt.util.Progress;
+import ss.fmt.util.ProjectLock;
+import ss.fmt.util.WorkFolder;
+import ss.fmt.util.XlsxStreamReader;
+import ss.lana.api.CommandArgument;
+import ss.lana.api.CommandExecutor;
+
+/**
+ * Import translations of several metadata types from xlsx file.
+ * @author ss
+ */
+@Component
+class TranslationsImport implements CommandExecutor {
+    /** Logger. */
+    private static final Logger LOG = Logger
+            .getLogger(TranslationsImport.class);
+// ============================= ARGS =========================================
+    /** Salesforce project 'src' folder path. */
+    private static final String ARG_PROJECT_PATH = "project-src";
+    /** Import file path. */
+    private static final String ARG_IMPORT_FILE_PATH = "import-file-path";
+    /** Imported metadata types. */
+    private static final String ARG_TYPES = "types";
+    /** Backup directory for original metadata files. */
+    private static final String ARG_BACKUP_DIR = "backup-dir";
+    /** Change set file path. */
+    private static final String ARG_CHANGES = "changes";
+    /** Change journal file path. */
+    private static final String ARG_JOURNAL = "journal";
+    /** Log every changed key. */
+    private static final String ARG_ECHO_CHANGES = "echo-changes";
+    /** Project lock wait timeout, seconds. */
+    private static final String ARG_LOCK_TIMEOUT = "lock-timeout";
+// ============================================================================
+    /** Default change set file. */
+    private static final String DEFAULT_CHANGES = "translations-changes.csv";
+    /** Default change journal file. */
+    private static final String DEFAULT_JOURNAL = "translations-journal.csv";
+    @Override
+    public String name() {
+        return "translations-import";
+    }
+    @Override
+    public String description() {
+        return "import translations of custom labels, fields, picklist "
+                + "values and other metadata types from xlsx";
+    }
+    @Override
+    public void execute(final List<CommandArgument> args) throws Exception {
+        final Map<String, String> values = new HashMap<>();
+        args.stream().forEach((arg) -> {
+            values.put(arg.getName(), arg.getValue());
+        });
+        File projectFolder = new File(values.get(ARG_PROJECT_PATH));
+        File importFile = new File(values.get(ARG_IMPORT_FILE_PATH));
+        List<MetadataDescriptor> types;
+        try {
+            types = values.get(ARG_TYPES) == null ? MetadataTypes.ALL
+                    : MetadataTypes.byName(Arrays.asList(
+                            values.get(ARG_TYPES).split(",")));
+        } catch (IllegalArgumentException e) {
+            LOG.fatal(e.getMessage());
+            return;
+        }
+        File backupDir = values.get(ARG_BACKUP_DIR) == null ? null
+                : new File(values.get(ARG_BACKUP_DIR));
+        boolean echo = Boolean.parseBoolean(values.get(ARG_ECHO_CHANGES));
+        long lockTimeout = values.get(ARG_LOCK_TIMEOUT) == null
+                ? ProjectLock.DEFAULT_TIMEOUT : TimeUnit.SECONDS.toMillis(
+                        Long.parseLong(values.get(ARG_LOCK_TIMEOUT)));
+        if (!projectFolder.exists()) {
+            LOG.fatal("project folder not exist! Path ["
+                    + projectFolder.getAbsolutePath() + "]");
+            return;
+        }
+        if (!importFile.exists()) {
+            LOG.fatal("import file not exist! Path ["
+                    + importFile.getAbsolutePath() + "]");
+            return;
+        }
+        File changesFile = WorkFolder.file(projectFolder,
+                values.get(ARG_CHANGES), DEFAULT_CHANGES);
+        File journalFile = WorkFolder.file(projectFolder,
+                values.get(ARG_JOURNAL), DEFAULT_JOURNAL);
+        LOG.info("project absolute path [" + projectFolder + "]");
+        LOG.info("import file path [" + importFile + "]");
+        LOG.info("import types " + types);
+        try (Progress progress = Progress.start(name(), true)) {
+            LanguageMapBuilder builder = new LanguageMapBuilder();
+            progress.phase("read", -1);
+            new XlsxStreamReader(progress).read(importFile,
+                    (rowNum, cells) -> builder.accept(rowNum, cells));
+            if (!builder.isValid()) {
+                LOG.fatal("invalid table structure! Forced exit...");
+                return;
+            }
+            LOG.info("import rows [" + builder.getRows() + "]");
+            ChangeSet changes = new ChangeSet();
+            MetadataEngine engine = new MetadataEngine(types, progress);
+            try (ProjectLock lock = ProjectLock.exclusive(projectFolder,
+                    lockTimeout);
+                    ChangeJournal journal = new ChangeJournal(journalFile,
+                            echo)) {
+                changes.setJournal(journal);
+                engine.importFrom(projectFolder, builder.getLanguageMap(),
+                        backupDir, changes);
+                journal.complete();
+            }
+            changes.write(changesFile);
+            LOG.info("change set saved [" + changesFile.getAbsolutePath()
+                    + "], files [" + changes.getFiles().size() + "]");
+        } catch (TimeoutException e) {
+            LOG.fatal(e.getMessage());
+        } catch (CancellationException e) {
+            LOG.warn("import cancelled, metadata wasn't changed");
+        }
+        LOG.info(ProjectLock.metrics());
+    }
+    @Override
+    public Set<CommandArgument> arguments() {
+        Set<CommandArgument> args = new HashSet<>();
+        args.add(new CommandArgument(ARG_PROJECT_PATH,
+                "path to project 'src' folder", true));
+        args.add(new CommandArgument(ARG_IMPORT_FILE_PATH,
+                "path to import file written by 'translations-export'",
+                true));
+        args.add(new CommandArgument(ARG_TYPES,
+                "metadata types separated by comma, default all: "
+                        + MetadataTypes.ALL, false));
+        args.add(new CommandArgument(ARG_BACKUP_DIR,
+                "directory for backup of original metadata files, "
+                        + "restored if import fails", false));
+        args.add(new CommandArgument(ARG_CHANGES,
+                "change set file with changed keys per metadata file, input "
+                        + "for 'custom-labels-package', default '"
+                        + WorkFolder.describe(DEFAULT_CHANGES) + "'", false));
+        args.add(new CommandArgument(ARG_JOURNAL,
+                "change journal with old and new value of every changed key, "
+                        + "default '" + WorkFolder.describe(DEFAULT_JOURNAL)
+                        + "'", false));
+        args.add(new CommandArgument(ARG_ECHO_CHANGES,
+                "'true' to log every changed key, by default only totals "
+                        + "per file are logged", false));
+        args.add(new CommandArgument(ARG_LOCK_TIMEOUT,
+                "seconds to wait for other runs on the same project, "
+                        + "default " + TimeUnit.MILLISECONDS.toSeconds(
+                                ProjectLock.DEFAULT_TIMEOUT), false));
+        return args;
+    }
+}
@@ -32,6 +32,9 @@ public final class ProjectFile {
     public static final String CUSTOM_LABELS = "CustomLabels.labels";
     /** Translation file template. */
     public static final String TMPL_TRANSLATION = "%s.translation";
+    /** Object translation file suffix. */
+    public static final String OBJECT_TRANSLATION_SUFFIX =
+            ".objectTranslation";
     /**
      * Constructor.
      */
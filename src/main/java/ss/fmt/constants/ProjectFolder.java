@@ -32,6 +32,8 @@ public final class ProjectFolder {
     public static final String CUSTOM_LABELS = "labels";
     /** Translations metadata folder name. */
     public static final String TRANSLATIONS = "translations";
+    /** Object translations metadata folder name. */
+    public static final String OBJECT_TRANSLATIONS = "objectTranslations";
     /**
      * Private constructor.
      */
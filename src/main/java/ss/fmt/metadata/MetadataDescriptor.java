@@ -0,0 +1,142 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.metadata;
+
+import java.util.List;
+
+/**
+ * Translatable metadata type descriptor.
+ * <p>
+ * Describes where records of the type are found in a metadata file: the
+ * record path below the root element, the key element on every level of
+ * that path and the element with the translated value of the last level.
+ * For example picklist values of object translations have record path
+ * <code>fields/picklistValues</code>, key path <code>name/masterLabel</code>
+ * and value element <code>translation</code>. Record keys are joined with
+ * '.', object translation keys start with the object name.
+ * </p>
+ * @author ss
+ */
+public final class MetadataDescriptor {
+    /** Path separator. */
+    private static final String SEPARATOR = "/";
+    /** Qualified key separator. */
+    public static final String TYPE_SEPARATOR = ":";
+    /** Type name. */
+    private final String type;
+    /** File location. */
+    private final MetadataLocation location;
+    /** Record path. */
+    private final String[] recordPath;
+    /** Key element per record path level. */
+    private final String[] keyPath;
+    /** Value element. */
+    private final String valueElement;
+    /**
+     * Constructor.
+     * @param type type name.
+     * @param location file location.
+     * @param recordPath record path below root, separated by '/'.
+     * @param keyPath key element per record path level, separated by '/'.
+     * @param valueElement value element of the last level.
+     */
+    public MetadataDescriptor(final String type,
+            final MetadataLocation location, final String recordPath,
+            final String keyPath, final String valueElement) {
+        this.type = type;
+        this.location = location;
+        this.recordPath = recordPath.split(SEPARATOR);
+        this.keyPath = keyPath.split(SEPARATOR);
+        this.valueElement = valueElement;
+        if (this.recordPath.length != this.keyPath.length) {
+            throw new IllegalArgumentException("type [" + type
+                    + "]: key path must have one element per record level");
+        }
+    }
+    /**
+     * @return type name.
+     */
+    public String getType() {
+        return type;
+    }
+    /**
+     * @return file location.
+     */
+    public MetadataLocation getLocation() {
+        return location;
+    }
+    /**
+     * @return value element.
+     */
+    public String getValueElement() {
+        return valueElement;
+    }
+    /**
+     * @return record path depth.
+     */
+    public int depth() {
+        return recordPath.length;
+    }
+    /**
+     * @param level record path level.
+     * @return record element name of the level.
+     */
+    public String recordElement(final int level) {
+        return recordPath[level];
+    }
+    /**
+     * @param level record path level.
+     * @return key element name of the level.
+     */
+    public String keyElement(final int level) {
+        return keyPath[level];
+    }
+    /**
+     * Check if element path is a prefix of the record path.
+     * @param path element names below root.
+     * @return true if elements of the path hold records of this type.
+     */
+    public boolean isRecordPath(final List<String> path) {
+        if (path.size() > recordPath.length) {
+            return false;
+        }
+        for (int i = 0; i < path.size(); i++) {
+            if (!recordPath[i].equals(path.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    /**
+     * @param key record key.
+     * @return key qualified with type name, unique between types.
+     */
+    public String qualify(final String key) {
+        return type + TYPE_SEPARATOR + key;
+    }
+    @Override
+    public String toString() {
+        return type;
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.metadata;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.log4j.Logger;
+import ss.fmt.util.ChangeSet;
+import ss.fmt.util.CustomLabelsUtil;
+import ss.fmt.util.MetadataTransaction;
+import ss.fmt.util.Progress;
+import ss.fmt.util.XlsxTableWriter;
+
+/**
+ * Generic translation engine for descriptor based metadata types.
+ * <p>
+ * Export reads every metadata file once for all types of its location, files
+ * are parsed in parallel by {@link MetadataStream} and the rows are written
+ * by {@link XlsxTableWriter}. The table has columns: qualified key, type and
+ * one column per language, the same layout the custom labels import reads.
+ * Import rewrites the files in parallel, replacing changed values only, and
+ * commits them in one {@link MetadataTransaction}. Locking of the project is
+ * up to the caller.
+ * </p>
+ * @author ss
+ */
+public class MetadataEngine extends CustomLabelsUtil {
+    /** Logger. */
+    private static final Logger LOG = Logger.getLogger(MetadataEngine.class);
+    /** Key column header. */
+    public static final String HEADER_KEY = "key";
+    /** Type column header. */
+    public static final String HEADER_TYPE = "type";
+    /** Types. */
+    private final List<MetadataDescriptor> types;
+    /** Progress. */
+    private final Progress progress;
+    /**
+     * Constructor.
+     * @param types metadata types.
+     * @param progress progress.
+     */
+    public MetadataEngine(final List<MetadataDescriptor> types,
+            final Progress progress) {
+        this.types = types;
+        this.progress = progress;
+    }
+    /**
+     * Read translations of all types into a table.
+     * @param projectFolder salesforce project folder.
+     * @param languages languages.
+     * @return table with header, rows sorted by key.
+     * @throws Exception error.
+     */
+    public List<List<String>> table(final File projectFolder,
+            final List<String> languages) throws Exception {
+        Map<String, String[]> rows = new ConcurrentSkipListMap<>();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Map.Entry<MetadataLocation, List<MetadataDescriptor>> e
+                : byLocation().entrySet()) {
+            MetadataLocation location = e.getKey();
+            for (File file : location.files(projectFolder, languages)) {
+                int column = languages.indexOf(location.language(file));
+                tasks.add(() -> {
+                    MetadataStream stream = new MetadataStream(e.getValue(),
+                            location.scope(file));
+                    try (InputStream is = open(file)) {
+                        stream.read(is, (type, key, value) -> {
+                            rows.computeIfAbsent(type.qualify(key), (k)
+                                    -> row(type, languages.size()))
+                                    [column + 2] = value;
+                            return null;
+                        });
+                    }
+                    progress.increment();
+                    LOG.debug(location.path(file) + " records ["
+                            + stream.getRecords() + "]");
+                    return null;
+                });
+            }
+        }
+        progress.phase("read", tasks.size());
+        invokeAll(tasks);
+        progress.checkCancelled();
+        List<List<String>> table = new ArrayList<>();
+        List<String> header = new ArrayList<>();
+        header.add(HEADER_KEY);
+        header.add(HEADER_TYPE);
+        header.addAll(languages);
+        table.add(header);
+        for (Map.Entry<String, String[]> row : rows.entrySet()) {
+            row.getValue()[0] = row.getKey();
+            table.add(Arrays.asList(row.getValue()));
+        }
+        LOG.info("metadata files read [" + tasks.size() + "], records ["
+                + rows.size() + "]");
+        return table;
+    }
+    /**
+     * Export translations of all types.
+     * @param projectFolder salesforce project folder.
+     * @param languages languages.
+     * @param out xlsx stream, not closed.
+     * @param compressionLevel zip compression level.
+     * @return exported rows without header.
+     * @throws Exception error.
+     */
+    public int export(final File projectFolder, final List<String> languages,
+            final OutputStream out, final int compressionLevel)
+            throws Exception {
+        List<List<String>> table = table(projectFolder, languages);
+        progress.phase("write", table.size());
+        try (XlsxTableWriter writer = new XlsxTableWriter(
+                progress.track(out), "Translations", compressionLevel)) {
+            for (List<String> row : table) {
+                writer.writeRow(row);
+                progress.increment();
+            }
+        }
+        return table.size() - 1;
+    }
+    /**
+     * Import translations into metadata files.
+     * @param projectFolder salesforce project folder.
+     * @param langMap values by language and qualified key.
+     * @param backupDir backup directory for original files, optional.
+     * @param changes change set, gets changed files and keys.
+     * @return replaced values.
+     * @throws Exception error.
+     */
+    public int importFrom(final File projectFolder,
+            final Map<String, Map<String, String>> langMap,
+            final File backupDir, final ChangeSet changes) throws Exception {
+        AtomicInteger replaced = new AtomicInteger();
+        AtomicInteger missing = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        try (MetadataTransaction tx = new MetadataTransaction(backupDir)) {
+            for (Map.Entry<MetadataLocation, List<MetadataDescriptor>> e
+                    : byLocation().entrySet()) {
+                MetadataLocation location = e.getKey();
+                for (File file : location.files(projectFolder,
+                        langMap.keySet())) {
+                    Map<String, String> values = langMap.get(
+                            location.language(file));
+                    tasks.add(() -> {
+                        MetadataStream stream = new MetadataStream(
+                                e.getValue(), location.scope(file));
+                        ByteArrayOutputStream bos =
+                                new ByteArrayOutputStream();
+                        try (InputStream is = open(file)) {
+                            // only values actually written are changes
+                            stream.rewrite(is, bos,
+                                    (type, key, value) -> values.get(
+                                            type.qualify(key)),
+                                    (type, key, value, next) -> {
+                                        changes.add(location.path(file),
+                                                key, value, next);
+                                    });
+                        }
+                        if (stream.getReplaced() > 0) {
+                            tx.stage(file, (os) -> bos.writeTo(os));
+                            LOG.info(location.path(file) + " values replaced ["
+                                    + stream.getReplaced() + "]");
+                        }
+                        replaced.addAndGet(stream.getReplaced());
+                        missing.addAndGet(stream.getMissing());
+                        progress.increment();
+                        return null;
+                    });
+                }
+            }
+            progress.phase("write", tasks.size());
+            invokeAll(tasks);
+            progress.checkCancelled();
+            tx.commit();
+        }
+        if (missing.get() > 0) {
+            LOG.warn("values without translation element, not imported ["
+                    + missing.get() + "]");
+        }
+        LOG.info("metadata files read [" + tasks.size()
+                + "], values replaced [" + replaced.get() + "]");
+        return replaced.get();
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * @return types grouped by location, one pass per file.
+     */
+    private Map<MetadataLocation, List<MetadataDescriptor>> byLocation() {
+        Map<MetadataLocation, List<MetadataDescriptor>> map =
+                new LinkedHashMap<>();
+        for (MetadataDescriptor d : types) {
+            map.computeIfAbsent(d.getLocation(), (k) -> new ArrayList<>())
+                    .add(d);
+        }
+        return map;
+    }
+    /**
+     * Create empty row.
+     * @param type metadata type.
+     * @param languages languages count.
+     * @return row: key, type and empty values.
+     */
+    private static String[] row(final MetadataDescriptor type,
+            final int languages) {
+        String[] row = new String[languages + 2];
+        Arrays.fill(row, "");
+        row[1] = type.getType();
+        return row;
+    }
+    /**
+     * Open metadata file.
+     * @param file metadata file.
+     * @return tracked buffered stream.
+     * @throws Exception error.
+     */
+    private InputStream open(final File file) throws Exception {
+        return progress.track(new BufferedInputStream(
+                new FileInputStream(file)));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.metadata;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import ss.fmt.constants.ProjectFile;
+import ss.fmt.constants.ProjectFolder;
+
+/**
+ * Location of translatable metadata files in the project.
+ * @author ss
+ */
+public enum MetadataLocation {
+    /** translations/&lt;lang&gt;.translation, one file per language. */
+    TRANSLATIONS(ProjectFolder.TRANSLATIONS, ".translation", false),
+    /**
+     * objectTranslations/&lt;object&gt;-&lt;lang&gt;.objectTranslation, one
+     * file per object and language.
+     */
+    OBJECT_TRANSLATIONS(ProjectFolder.OBJECT_TRANSLATIONS,
+            ProjectFile.OBJECT_TRANSLATION_SUFFIX, true);
+    /** Folder name. */
+    private final String folder;
+    /** File name suffix. */
+    private final String suffix;
+    /** File name starts with the object name. */
+    private final boolean scoped;
+    /**
+     * Constructor.
+     * @param folder folder name.
+     * @param suffix file name suffix.
+     * @param scoped file name starts with the object name.
+     */
+    MetadataLocation(final String folder, final String suffix,
+            final boolean scoped) {
+        this.folder = folder;
+        this.suffix = suffix;
+        this.scoped = scoped;
+    }
+    /**
+     * @return folder name.
+     */
+    public String getFolder() {
+        return folder;
+    }
+    /**
+     * Find files of the languages.
+     * @param projectFolder salesforce project folder.
+     * @param languages languages.
+     * @return existing files sorted by name.
+     */
+    public List<File> files(final File projectFolder,
+            final Collection<String> languages) {
+        List<File> files = new ArrayList<>();
+        File[] list = new File(projectFolder, folder).listFiles((d, name)
+                -> name.endsWith(suffix));
+        if (list == null) {
+            return files;
+        }
+        Arrays.sort(list);
+        for (File f : list) {
+            if (languages.contains(language(f))) {
+                files.add(f);
+            }
+        }
+        return files;
+    }
+    /**
+     * @param file metadata file.
+     * @return language of the file.
+     */
+    public String language(final File file) {
+        String name = file.getName();
+        name = name.substring(0, name.length() - suffix.length());
+        return scoped ? name.substring(name.lastIndexOf('-') + 1) : name;
+    }
+    /**
+     * @param file metadata file.
+     * @return object name for object translations, otherwise null.
+     */
+    public String scope(final File file) {
+        if (!scoped) {
+            return null;
+        }
+        String name = file.getName();
+        int i = name.lastIndexOf('-');
+        return i < 0 ? null : name.substring(0, i);
+    }
+    /**
+     * @param file metadata file.
+     * @return path relative to project folder, as used by change sets.
+     */
+    public String path(final File file) {
+        return folder + "/" + file.getName();
+    }
+}
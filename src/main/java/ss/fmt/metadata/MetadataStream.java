@@ -0,0 +1,485 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.metadata;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.events.XMLEvent;
+
+/**
+ * Streaming metadata file reader and writer.
+ * <p>
+ * The file is parsed with StAX in one pass for all given descriptors of the
+ * same location. Only elements on a record path are tracked, the rest of the
+ * document is passed through. When rewriting, events of one top-level record
+ * element are buffered until it is closed, because key elements can follow
+ * the value element, then the changed values are replaced and the events are
+ * written out. Not thread safe, one instance per file.
+ * </p>
+ * <p>
+ * The output keeps the input byte for byte except for: the declaration is
+ * written as {@code <?xml version="1.0" encoding="UTF-8"?>} followed by a
+ * line break, empty elements like {@code <label/>} are written with a start
+ * and end tag, and text is escaped the way the Metadata API does it
+ * ({@code & < > " '}). The last one needs the JDK StAX writer, with another
+ * writer only {@code &} and {@code <} are escaped.
+ * </p>
+ * @author ss
+ */
+public class MetadataStream {
+    /** Input factory, thread safe after configuration. */
+    private static final XMLInputFactory INPUT = XMLInputFactory.newInstance();
+    /** Output factory. */
+    private static final XMLOutputFactory OUTPUT =
+            XMLOutputFactory.newInstance();
+    /** Event factory. */
+    private static final XMLEventFactory EVENTS = XMLEventFactory.newInstance();
+    /** Line break after declaration and root element. */
+    private static final String NEW_LINE = "\n";
+    /** JDK writer property, text is written as is. */
+    private static final String ESCAPE_CHARACTERS = "escapeCharacters";
+    /** Text is escaped by this class. */
+    private static final boolean ESCAPE_TEXT;
+    static {
+        INPUT.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        INPUT.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+                false);
+        ESCAPE_TEXT = OUTPUT.isPropertySupported(ESCAPE_CHARACTERS);
+        if (ESCAPE_TEXT) {
+            OUTPUT.setProperty(ESCAPE_CHARACTERS, false);
+        }
+    }
+    /**
+     * Record handler.
+     */
+    public interface RecordHandler {
+        /**
+         * Handle record.
+         * @param type record type.
+         * @param key record key.
+         * @param value translated value, empty if absent.
+         * @return new value, null to keep the value.
+         * @throws Exception error.
+         */
+        String record(MetadataDescriptor type, String key, String value)
+                throws Exception;
+    }
+    /**
+     * Listener of replaced values.
+     */
+    public interface ChangeListener {
+        /**
+         * Value was replaced. Not called for records without value element.
+         * @param type record type.
+         * @param key record key.
+         * @param value old value.
+         * @param next new value.
+         * @throws Exception error.
+         */
+        void replaced(MetadataDescriptor type, String key, String value,
+                String next) throws Exception;
+    }
+    /**
+     * Tracked element on a record path.
+     */
+    private static class Frame {
+        /** Element name. */
+        private final String name;
+        /** Leaf children by name. */
+        private final Map<String, Leaf> leaves = new HashMap<>();
+        /** Tracked children. */
+        private final List<Frame> children = new ArrayList<>();
+        /**
+         * Constructor.
+         * @param name element name.
+         */
+        Frame(final String name) {
+            this.name = name;
+        }
+        /**
+         * @param leaf leaf name.
+         * @return leaf text, null if absent.
+         */
+        String text(final String leaf) {
+            Leaf l = leaves.get(leaf);
+            return l == null ? null : l.text;
+        }
+    }
+    /**
+     * Text element, child of a tracked element.
+     */
+    private static class Leaf {
+        /** Text. */
+        private final String text;
+        /** First content event index in the buffer. */
+        private final int start;
+        /** End element event index in the buffer. */
+        private final int end;
+        /**
+         * Constructor.
+         * @param text text.
+         * @param start first content event index.
+         * @param end end element event index.
+         */
+        Leaf(final String text, final int start, final int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+    }
+    /** Descriptors of one location. */
+    private final List<MetadataDescriptor> types;
+    /** Object name for object translations, can be null. */
+    private final String scope;
+    /** Records found. */
+    private int records = 0;
+    /** Values replaced. */
+    private int replaced = 0;
+    /** Values not replaced because the value element is absent. */
+    private int missing = 0;
+    /**
+     * Constructor.
+     * @param types descriptors of one location.
+     * @param scope object name for object translations, can be null.
+     */
+    public MetadataStream(final List<MetadataDescriptor> types,
+            final String scope) {
+        this.types = types;
+        this.scope = scope;
+    }
+    /**
+     * Read records.
+     * @param in metadata file stream, not closed.
+     * @param handler record handler, returned values are ignored.
+     * @throws Exception error.
+     */
+    public void read(final InputStream in, final RecordHandler handler)
+            throws Exception {
+        process(in, null, handler, null);
+    }
+    /**
+     * Copy metadata file replacing translated values.
+     * @param in metadata file stream, not closed.
+     * @param out target stream, not closed.
+     * @param handler record handler, returns new values.
+     * @throws Exception error.
+     */
+    public void rewrite(final InputStream in, final OutputStream out,
+            final RecordHandler handler) throws Exception {
+        rewrite(in, out, handler, null);
+    }
+    /**
+     * Copy metadata file replacing translated values.
+     * @param in metadata file stream, not closed.
+     * @param out target stream, not closed.
+     * @param handler record handler, returns new values.
+     * @param listener gets replaced values, can be null.
+     * @throws Exception error.
+     */
+    public void rewrite(final InputStream in, final OutputStream out,
+            final RecordHandler handler, final ChangeListener listener)
+            throws Exception {
+        XMLEventWriter writer = OUTPUT.createXMLEventWriter(out, "UTF-8");
+        try {
+            process(in, writer, handler, listener);
+            writer.flush();
+        } finally {
+            writer.close();
+        }
+    }
+    /**
+     * @return records found.
+     */
+    public int getRecords() {
+        return records;
+    }
+    /**
+     * @return values replaced.
+     */
+    public int getReplaced() {
+        return replaced;
+    }
+    /**
+     * @return values not replaced because the value element is absent.
+     */
+    public int getMissing() {
+        return missing;
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Parse the document.
+     * @param in input stream.
+     * @param writer event writer, null for read only.
+     * @param handler record handler.
+     * @param listener listener of replaced values, can be null.
+     * @throws Exception error.
+     */
+    private void process(final InputStream in, final XMLEventWriter writer,
+            final RecordHandler handler, final ChangeListener listener)
+            throws Exception {
+        XMLEventReader reader = INPUT.createXMLEventReader(in);
+        try {
+            List<String> path = new ArrayList<>();
+            Deque<Frame> frames = new ArrayDeque<>();
+            List<XMLEvent> buffer = writer == null ? null : new ArrayList<>();
+            boolean root = false;
+            String leaf = null;
+            StringBuilder text = new StringBuilder();
+            int leafStart = 0;
+            while (reader.hasNext()) {
+                XMLEvent e = reader.nextEvent();
+                if (e.isStartElement()) {
+                    if (!root) {
+                        root = true;
+                        emit(e, frames, buffer, writer);
+                        continue;
+                    }
+                    String name = e.asStartElement().getName().getLocalPart();
+                    path.add(name);
+                    if (path.size() == frames.size() + 1 && isTracked(path)) {
+                        Frame f = new Frame(name);
+                        if (!frames.isEmpty()) {
+                            frames.peek().children.add(f);
+                        }
+                        frames.push(f);
+                    } else if (!frames.isEmpty()
+                            && path.size() == frames.size() + 1) {
+                        leaf = name;
+                        text.setLength(0);
+                        leafStart = buffer == null ? 0 : buffer.size() + 1;
+                    }
+                    emit(e, frames, buffer, writer);
+                } else if (e.isCharacters()) {
+                    if (leaf != null && path.size() == frames.size() + 1) {
+                        text.append(e.asCharacters().getData());
+                    }
+                    emit(e, frames, buffer, writer);
+                } else if (e.isEndElement() && !path.isEmpty()) {
+                    path.remove(path.size() - 1);
+                    int end = buffer == null ? 0 : buffer.size();
+                    emit(e, frames, buffer, writer);
+                    if (leaf != null && path.size() == frames.size()) {
+                        frames.peek().leaves.put(leaf,
+                                new Leaf(text.toString(), leafStart, end));
+                        leaf = null;
+                    } else if (path.size() + 1 == frames.size()) {
+                        Frame top = frames.pop();
+                        if (frames.isEmpty()) {
+                            complete(top, buffer, writer, handler,
+                                    listener);
+                        }
+                    }
+                } else {
+                    emit(e, frames, buffer, writer);
+                    if (writer != null && (e.isStartDocument()
+                            || e.isEndElement())) {
+                        // line breaks of the prolog aren't reported
+                        write(writer, EVENTS.createCharacters(NEW_LINE));
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+    /**
+     * Check if element path holds records.
+     * @param path element names below root.
+     * @return true if some descriptor tracks the path.
+     */
+    private boolean isTracked(final List<String> path) {
+        for (MetadataDescriptor d : types) {
+            if (d.isRecordPath(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    /**
+     * Write or buffer event.
+     * @param e event.
+     * @param frames open tracked elements.
+     * @param buffer event buffer, null for read only.
+     * @param writer event writer, null for read only.
+     * @throws Exception error.
+     */
+    private void emit(final XMLEvent e, final Deque<Frame> frames,
+            final List<XMLEvent> buffer, final XMLEventWriter writer)
+            throws Exception {
+        if (writer == null) {
+            return;
+        }
+        if (frames.isEmpty() && buffer.isEmpty()) {
+            write(writer, e);
+        } else {
+            buffer.add(e);
+        }
+    }
+    /**
+     * Handle records of closed top-level element and flush its events.
+     * @param top top-level tracked element.
+     * @param buffer event buffer, null for read only.
+     * @param writer event writer, null for read only.
+     * @param handler record handler.
+     * @param listener listener of replaced values, can be null.
+     * @throws Exception error.
+     */
+    private void complete(final Frame top, final List<XMLEvent> buffer,
+            final XMLEventWriter writer, final RecordHandler handler,
+            final ChangeListener listener) throws Exception {
+        Map<Leaf, String> changes = new HashMap<>();
+        for (MetadataDescriptor d : types) {
+            if (d.recordElement(0).equals(top.name)) {
+                visit(d, top, 0, scope, handler, listener, changes);
+            }
+        }
+        if (writer == null) {
+            return;
+        }
+        List<Leaf> leaves = new ArrayList<>(changes.keySet());
+        leaves.sort((a, b) -> Integer.compare(b.start, a.start));
+        for (Leaf l : leaves) {
+            List<XMLEvent> content = buffer.subList(l.start, l.end);
+            content.clear();
+            content.add(EVENTS.createCharacters(changes.get(l)));
+        }
+        for (XMLEvent e : buffer) {
+            write(writer, e);
+        }
+        buffer.clear();
+    }
+    /**
+     * Visit records of the element.
+     * @param d descriptor.
+     * @param f element on the record path.
+     * @param level record path level.
+     * @param prefix key of upper levels, can be null.
+     * @param handler record handler.
+     * @param listener listener of replaced values, can be null.
+     * @param changes changed value leaves.
+     * @throws Exception error.
+     */
+    private void visit(final MetadataDescriptor d, final Frame f,
+            final int level, final String prefix,
+            final RecordHandler handler, final ChangeListener listener,
+            final Map<Leaf, String> changes) throws Exception {
+        String part = f.text(d.keyElement(level));
+        if (part == null) {
+            return;
+        }
+        String key = prefix == null ? part : prefix + "." + part;
+        if (level + 1 < d.depth()) {
+            for (Frame child : f.children) {
+                if (child.name.equals(d.recordElement(level + 1))) {
+                    visit(d, child, level + 1, key, handler, listener,
+                            changes);
+                }
+            }
+            return;
+        }
+        records++;
+        Leaf leaf = f.leaves.get(d.getValueElement());
+        String value = leaf == null ? "" : leaf.text;
+        String next = handler.record(d, key, value);
+        if (next == null || next.equals(value)) {
+            return;
+        }
+        if (leaf == null) {
+            missing++;
+        } else {
+            changes.put(leaf, next);
+            replaced++;
+            if (listener != null) {
+                listener.replaced(d, key, value, next);
+            }
+        }
+    }
+    /**
+     * Write event, text is escaped like in metadata API files.
+     * @param writer event writer.
+     * @param e event.
+     * @throws Exception error.
+     */
+    private static void write(final XMLEventWriter writer, final XMLEvent e)
+            throws Exception {
+        if (ESCAPE_TEXT && e.isCharacters() && !e.asCharacters().isCData()) {
+            writer.add(EVENTS.createCharacters(escape(
+                    e.asCharacters().getData())));
+        } else {
+            writer.add(e);
+        }
+    }
+    /**
+     * Escape text.
+     * @param text text.
+     * @return escaped text.
+     */
+    static String escape(final String text) {
+        StringBuilder sb = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String entity;
+            switch (c) {
+                case '&':
+                    entity = "&amp;";
+                    break;
+                case '<':
+                    entity = "&lt;";
+                    break;
+                case '>':
+                    entity = "&gt;";
+                    break;
+                case '"':
+                    entity = "&quot;";
+                    break;
+                case '\'':
+                    entity = "&apos;";
+                    break;
+                default:
+                    entity = null;
+            }
+            if (entity != null && sb == null) {
+                sb = new StringBuilder(text.length() + 16);
+                sb.append(text, 0, i);
+            }
+            if (entity != null) {
+                sb.append(entity);
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb == null ? text : sb.toString();
+    }
+}
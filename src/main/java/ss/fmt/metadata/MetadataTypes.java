@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.metadata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Built-in translatable metadata types.
+ * <p>
+ * A new type is added as one more descriptor, no model classes are needed.
+ * </p>
+ * @author ss
+ */
+public final class MetadataTypes {
+    /** Custom label translations. */
+    public static final MetadataDescriptor CUSTOM_LABEL =
+            new MetadataDescriptor("CustomLabel",
+                    MetadataLocation.TRANSLATIONS, "customLabels", "name",
+                    "label");
+    /** Custom application translations. */
+    public static final MetadataDescriptor CUSTOM_APPLICATION =
+            new MetadataDescriptor("CustomApplication",
+                    MetadataLocation.TRANSLATIONS, "customApplications",
+                    "name", "label");
+    /** Custom tab translations. */
+    public static final MetadataDescriptor CUSTOM_TAB =
+            new MetadataDescriptor("CustomTab",
+                    MetadataLocation.TRANSLATIONS, "customTabs", "name",
+                    "label");
+    /** Quick action translations. */
+    public static final MetadataDescriptor QUICK_ACTION =
+            new MetadataDescriptor("QuickAction",
+                    MetadataLocation.TRANSLATIONS, "quickActions", "name",
+                    "label");
+    /** Field label translations. */
+    public static final MetadataDescriptor CUSTOM_FIELD =
+            new MetadataDescriptor("CustomField",
+                    MetadataLocation.OBJECT_TRANSLATIONS, "fields", "name",
+                    "label");
+    /** Picklist value translations. */
+    public static final MetadataDescriptor PICKLIST_VALUE =
+            new MetadataDescriptor("PicklistValue",
+                    MetadataLocation.OBJECT_TRANSLATIONS,
+                    "fields/picklistValues", "name/masterLabel",
+                    "translation");
+    /** Record type translations. */
+    public static final MetadataDescriptor RECORD_TYPE =
+            new MetadataDescriptor("RecordType",
+                    MetadataLocation.OBJECT_TRANSLATIONS, "recordTypes",
+                    "name", "label");
+    /** All built-in types. */
+    public static final List<MetadataDescriptor> ALL =
+            Collections.unmodifiableList(Arrays.asList(CUSTOM_LABEL,
+                    CUSTOM_APPLICATION, CUSTOM_TAB, QUICK_ACTION,
+                    CUSTOM_FIELD, PICKLIST_VALUE, RECORD_TYPE));
+    /**
+     * Private constructor.
+     */
+    private MetadataTypes() {
+    }
+    /**
+     * Find types by name.
+     * @param names type names.
+     * @return types in the given order.
+     * @throws IllegalArgumentException unknown type.
+     */
+    public static List<MetadataDescriptor> byName(final List<String> names) {
+        List<MetadataDescriptor> types = new ArrayList<>();
+        for (String name : names) {
+            MetadataDescriptor type = null;
+            for (MetadataDescriptor d : ALL) {
+                if (d.getType().equalsIgnoreCase(name.trim())) {
+                    type = d;
+                }
+            }
+            if (type == null) {
+                throw new IllegalArgumentException("unknown metadata type ["
+                        + name + "]");
+            }
+            types.add(type);
+        }
+        return types;
+    }
+}
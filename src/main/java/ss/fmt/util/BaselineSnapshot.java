@@ -0,0 +1,184 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import ss.fmt.jaxb.model.CustomLabel;
+
+/**
+ * Per-label fingerprints of the last exported or imported state.
+ * <p>
+ * A fingerprint covers label name, description, value and translations for
+ * the snapshot languages. The file is a gzipped binary list of key and
+ * fingerprint pairs.
+ * </p>
+ * @author ss
+ */
+public class BaselineSnapshot {
+    /** File format marker. */
+    private static final int MAGIC = 0x464d5442;
+    /** File format version. */
+    private static final int VERSION = 1;
+    /** Snapshot languages, sorted. */
+    private final List<String> languages;
+    /** Fingerprints by label name. */
+    private final Map<String, Long> fingerprints = new HashMap<>();
+    /**
+     * Constructor.
+     * @param languages snapshot languages.
+     */
+    public BaselineSnapshot(final Collection<String> languages) {
+        List<String> list = new ArrayList<>();
+        languages.forEach((lang) -> {
+            list.add(lang.trim());
+        });
+        Collections.sort(list);
+        this.languages = Collections.unmodifiableList(list);
+    }
+    /**
+     * Read snapshot.
+     * @param file snapshot file.
+     * @return snapshot or null if file doesn't exist.
+     * @throws IOException error.
+     */
+    public static BaselineSnapshot read(final File file) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(
+                new BufferedInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("unsupported baseline file ["
+                        + file.getAbsolutePath() + "]");
+            }
+            int langCount = in.readInt();
+            List<String> langs = new ArrayList<>(langCount);
+            for (int i = 0; i < langCount; i++) {
+                langs.add(in.readUTF());
+            }
+            BaselineSnapshot snapshot = new BaselineSnapshot(langs);
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                snapshot.fingerprints.put(in.readUTF(), in.readLong());
+            }
+            return snapshot;
+        }
+    }
+    /**
+     * Write snapshot, atomically replaces existing file.
+     * @param file snapshot file.
+     * @throws Exception error.
+     */
+    public void write(final File file) throws Exception {
+        try (MetadataTransaction tx = new MetadataTransaction(null)) {
+            tx.stage(file, (os) -> {
+                GZIPOutputStream gz = new GZIPOutputStream(os);
+                DataOutputStream out = new DataOutputStream(gz);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(languages.size());
+                for (String lang : languages) {
+                    out.writeUTF(lang);
+                }
+                out.writeInt(fingerprints.size());
+                for (Map.Entry<String, Long> e : fingerprints.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeLong(e.getValue());
+                }
+                out.flush();
+                gz.finish();
+            });
+            tx.commit();
+        }
+    }
+    /**
+     * @return snapshot languages, sorted.
+     */
+    public List<String> getLanguages() {
+        return languages;
+    }
+    /**
+     * @return labels count.
+     */
+    public int size() {
+        return fingerprints.size();
+    }
+    /**
+     * Calculate label fingerprint.
+     * @param cl custom label.
+     * @param translations translations by language, language names are
+     * trimmed.
+     * @return fingerprint.
+     */
+    public long fingerprint(final CustomLabel cl,
+            final Map<String, Map<String, String>> translations) {
+        Fingerprint f = new Fingerprint().add(cl.getFullName())
+                .add(cl.getShortDescription()).add(cl.getValue());
+        for (String lang : languages) {
+            Map<String, String> tMap = translations.get(lang);
+            f.add(tMap == null ? null : tMap.get(cl.getFullName()));
+        }
+        return f.value();
+    }
+    /**
+     * Store label fingerprint.
+     * @param key label name.
+     * @param fingerprint fingerprint.
+     */
+    public void put(final String key, final long fingerprint) {
+        fingerprints.put(key, fingerprint);
+    }
+    /**
+     * Copy fingerprints of another snapshot with the same languages.
+     * @param other other snapshot.
+     */
+    public void putAll(final BaselineSnapshot other) {
+        if (languages.equals(other.languages)) {
+            fingerprints.putAll(other.fingerprints);
+        }
+    }
+    /**
+     * Check if label is new or changed.
+     * @param key label name.
+     * @param fingerprint current fingerprint.
+     * @return true if label isn't in snapshot or has another fingerprint.
+     */
+    public boolean isChanged(final String key, final long fingerprint) {
+        Long stored = fingerprints.get(key);
+        return stored == null || stored != fingerprint;
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.log4j.Logger;
+
+/**
+ * Change journal.
+ * <p>
+ * Every changed value is recorded as a compact record into a lock-free
+ * queue, a background thread drains the queue into a CSV file with 'file',
+ * 'key', 'old' and 'new' columns, readable by {@link ChangeSet#read(File)}.
+ * Producers never wait for the disk. The log gets one summary line per file
+ * when the journal is closed, every change is logged only on request.
+ * Records are written to a temporary file in the journal directory, moved
+ * into place by {@link #complete()}. If the journal is closed without it,
+ * the changes weren't committed, the temporary file is removed and the
+ * journal of the previous import is kept.
+ * </p>
+ * @author ss
+ */
+public class ChangeJournal implements AutoCloseable {
+    /** Logger. */
+    private static final Logger LOG = Logger.getLogger(ChangeJournal.class);
+    /** Writer idle wait. */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    /**
+     * Journal record.
+     */
+    private static final class Change {
+        /** File path. */
+        private final String file;
+        /** Key. */
+        private final String key;
+        /** Old value. */
+        private final String oldValue;
+        /** New value. */
+        private final String newValue;
+        /**
+         * Constructor.
+         * @param file file path.
+         * @param key key.
+         * @param oldValue old value.
+         * @param newValue new value.
+         */
+        Change(final String file, final String key, final String oldValue,
+                final String newValue) {
+            this.file = file;
+            this.key = key;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+    }
+    /** Temporary file suffix. */
+    private static final String TMP_SUFFIX = ".tmp";
+    /** Journal file, can be null. */
+    private final File file;
+    /** Temporary file, null without journal file. */
+    private final File temp;
+    /** Log every change. */
+    private final boolean echo;
+    /** Pending records. */
+    private final Queue<Change> queue = new ConcurrentLinkedQueue<>();
+    /** Changes by file. */
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    /** Background writer, null without journal file. */
+    private final Thread writer;
+    /** Journal file stream. */
+    private final Writer out;
+    /** Writer error. */
+    private volatile IOException error;
+    /** Journal is closed for new records. */
+    private volatile boolean closed = false;
+    /** Changes are committed. */
+    private boolean completed = false;
+    /** Journal is closed. */
+    private boolean released = false;
+    /**
+     * Constructor.
+     * @param file journal file, can be null to count changes only.
+     * @param echo log every change.
+     * @throws IOException journal file can't be created.
+     */
+    public ChangeJournal(final File file, final boolean echo)
+            throws IOException {
+        this.file = file;
+        this.echo = echo;
+        if (file == null) {
+            this.temp = null;
+            this.out = null;
+            this.writer = null;
+            return;
+        }
+        this.temp = File.createTempFile("." + file.getName() + ".",
+                TMP_SUFFIX, file.getAbsoluteFile().getParentFile());
+        try {
+            this.out = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(temp), StandardCharsets.UTF_8));
+            this.out.write(Csv.line("file", "key", "old", "new"));
+            this.out.write('\n');
+        } catch (IOException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+        this.writer = new Thread(this::drain, "change-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+    /**
+     * Record changed value, thread safe and lock-free.
+     * @param path file path relative to project 'src' folder.
+     * @param key changed key.
+     * @param oldValue old value.
+     * @param newValue new value.
+     */
+    public void record(final String path, final String key,
+            final String oldValue, final String newValue) {
+        counts.computeIfAbsent(path, (k) -> new LongAdder()).increment();
+        if (echo) {
+            LOG.info(path + ": key [" + key + "], old value [" + oldValue
+                    + "], new value [" + newValue + "]");
+        }
+        if (writer != null && error == null && !closed) {
+            queue.add(new Change(path, key, oldValue, newValue));
+        }
+    }
+    /**
+     * Mark changes as committed: pending records are written and the
+     * journal file replaces the previous one. No records are accepted after
+     * this call.
+     * @throws IOException write error, the previous journal is kept.
+     */
+    public void complete() throws IOException {
+        finish();
+        if (temp != null) {
+            if (error != null) {
+                throw error;
+            }
+            move(temp, file);
+        }
+        completed = true;
+    }
+    /**
+     * @return changes count.
+     */
+    public long size() {
+        long size = 0;
+        for (LongAdder c : counts.values()) {
+            size += c.sum();
+        }
+        return size;
+    }
+    /**
+     * Close the journal, removes the temporary file if changes weren't
+     * committed.
+     * @throws IOException error.
+     */
+    @Override
+    public void close() throws IOException {
+        if (released) {
+            return;
+        }
+        released = true;
+        finish();
+        if (!completed) {
+            if (temp != null) {
+                Files.deleteIfExists(temp.toPath());
+            }
+            LOG.warn("changes weren't committed, change journal discarded");
+        } else {
+            new TreeMap<>(counts).forEach((path, count) -> {
+                LOG.info(path + ": changed keys [" + count.sum() + "]");
+            });
+            LOG.info("changed keys [" + size() + "]" + (file == null ? ""
+                    : ", change journal [" + file.getAbsolutePath() + "]"));
+        }
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Stop accepting records, drain pending ones and close the temporary
+     * file.
+     * @throws IOException close error.
+     */
+    private void finish() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            out.close();
+        }
+    }
+    /**
+     * Atomic move, falls back to plain replace when not supported.
+     * @param from source file.
+     * @param to target file.
+     * @throws IOException error.
+     */
+    private static void move(final File from, final File to)
+            throws IOException {
+        try {
+            Files.move(from.toPath(), to.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from.toPath(), to.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    /**
+     * Background writer loop.
+     */
+    private void drain() {
+        try {
+            while (true) {
+                boolean last = closed;
+                Change c = queue.poll();
+                if (c != null) {
+                    out.write(Csv.line(c.file, c.key, c.oldValue,
+                            c.newValue));
+                    out.write('\n');
+                } else if (last) {
+                    break;
+                } else {
+                    out.flush();
+                    LockSupport.parkNanos(this, IDLE_NANOS);
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            error = e;
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Changed metadata keys by file.
+ * <p>
+ * Files are identified by path relative to project 'src' folder, for
+ * example 'translations/de.translation'. Stored as CSV with 'file' and
+ * 'key' columns. Changed values can be recorded to an attached
+ * {@link ChangeJournal}. Thread safe, producers don't lock, files and
+ * keys are sorted when they are read.
+ * </p>
+ * @author ss
+ */
+public class ChangeSet {
+    /** Changed keys by file. */
+    private final Map<String, Set<String>> changes =
+            new ConcurrentHashMap<>();
+    /** Change journal, optional. */
+    private volatile ChangeJournal journal;
+    /**
+     * Add changed key.
+     * @param file file path relative to project 'src' folder.
+     * @param key changed key.
+     */
+    public void add(final String file, final String key) {
+        changes.computeIfAbsent(file, (k) -> ConcurrentHashMap.newKeySet())
+                .add(key);
+    }
+    /**
+     * Add changed key and record the values to the journal.
+     * @param file file path relative to project 'src' folder.
+     * @param key changed key.
+     * @param oldValue old value.
+     * @param newValue new value.
+     */
+    public void add(final String file, final String key,
+            final String oldValue, final String newValue) {
+        add(file, key);
+        ChangeJournal j = journal;
+        if (j != null) {
+            j.record(file, key, oldValue, newValue);
+        }
+    }
+    /**
+     * @param journal change journal, can be null.
+     */
+    public void setJournal(final ChangeJournal journal) {
+        this.journal = journal;
+    }
+    /**
+     * Check file.
+     * @param file file path relative to project 'src' folder.
+     * @return true if some key of the file was changed.
+     */
+    public boolean contains(final String file) {
+        return changes.containsKey(file);
+    }
+    /**
+     * @return changed files, sorted.
+     */
+    public Set<String> getFiles() {
+        return new TreeSet<>(changes.keySet());
+    }
+    /**
+     * Changed keys.
+     * @param file file path relative to project 'src' folder.
+     * @return changed keys, sorted, empty if file wasn't changed.
+     */
+    public Set<String> getKeys(final String file) {
+        Set<String> keys = changes.get(file);
+        return keys == null ? new TreeSet<>() : new TreeSet<>(keys);
+    }
+    /**
+     * @return true if nothing was changed.
+     */
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+    /**
+     * Write change set, sorted by file and key.
+     * @param file CSV file.
+     * @throws Exception error.
+     */
+    public void write(final File file) throws Exception {
+        try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            pw.println(Csv.line("file", "key"));
+            for (String f : getFiles()) {
+                for (String key : getKeys(f)) {
+                    pw.println(Csv.line(f, key));
+                }
+            }
+        }
+    }
+    /**
+     * Read change set, columns after 'file' and 'key' are ignored.
+     * @param file CSV file.
+     * @return change set.
+     * @throws Exception error.
+     */
+    public static ChangeSet read(final File file) throws Exception {
+        ChangeSet set = new ChangeSet();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            List<String> header = Csv.read(br);
+            if (header == null) {
+                return set;
+            }
+            for (List<String> row = Csv.read(br); row != null;
+                    row = Csv.read(br)) {
+                if (row.size() >= 2 && !row.get(0).isEmpty()) {
+                    set.add(row.get(0), row.get(1));
+                }
+            }
+        }
+        return set;
+    }
+}
@@ -23,9 +23,23 @@
  */
 package ss.fmt.util;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 import org.apache.log4j.Logger;
 import ss.fmt.jaxb.model.CustomLabels;
@@ -38,6 +52,9 @@ import ss.fmt.jaxb.model.Translations;
 public abstract class CustomLabelsUtil {
     /** Logger. */
     private static final Logger LOG = Logger.getLogger(CustomLabelsUtil.class);
+    /** JAXB contexts, thread safe and expensive to create. */
+    private static final Map<Class<?>, JAXBContext> CONTEXTS =
+            new ConcurrentHashMap<>();
     /**
      * Extract custom labels.
      * @param file custom labels file.
@@ -46,9 +63,25 @@ public abstract class CustomLabelsUtil {
      */
     protected CustomLabels extractCustomLabels(final File file)
             throws Exception {
-        JAXBContext jc = JAXBContext.newInstance(CustomLabels.class);
+        return extractCustomLabels(file, Progress.disabled());
+    }
+    /**
+     * Extract custom labels.
+     * @param file custom labels file.
+     * @param progress progress, counts read bytes and parsed labels.
+     * @return unmarshalled object.
+     * @throws Exception error.
+     */
+    protected CustomLabels extractCustomLabels(final File file,
+            final Progress progress) throws Exception {
+        JAXBContext jc = context(CustomLabels.class);
         Unmarshaller unmarshaller = jc.createUnmarshaller();
-        CustomLabels object = (CustomLabels) unmarshaller.unmarshal(file);
+        CustomLabels object;
+        try (InputStream is = progress.track(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            object = (CustomLabels) unmarshaller.unmarshal(is);
+        }
+        progress.add(object.getLabels().size());
         LOG.info("total custom labels found [" + object.getLabels().size()
                 + "]");
         return object;
@@ -61,13 +94,88 @@ public abstract class CustomLabelsUtil {
      */
     protected Translations extractTranslations(final File file)
             throws Exception {
-        JAXBContext jc = JAXBContext.newInstance(Translations.class);
+        return extractTranslations(file, Progress.disabled());
+    }
+    /**
+     * Extract translations.
+     * @param file translations file.
+     * @param progress progress, counts read bytes and parsed translations.
+     * @return unmarshalled object.
+     * @throws Exception error.
+     */
+    protected Translations extractTranslations(final File file,
+            final Progress progress) throws Exception {
+        JAXBContext jc = context(Translations.class);
         Unmarshaller unmarshaller = jc.createUnmarshaller();
-        Translations object = (Translations) unmarshaller.unmarshal(file);
+        Translations object;
+        try (InputStream is = progress.track(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            object = (Translations) unmarshaller.unmarshal(is);
+        }
+        progress.add(object.getCustomLabels().size());
         LOG.info("total translations found [" + object.getCustomLabels().size()
                 + "]");
         return object;
     }
+    /**
+     * Marshal metadata object.
+     * @param object custom labels or translations.
+     * @param os output stream.
+     * @throws Exception error.
+     */
+    protected void marshal(final Object object, final OutputStream os)
+            throws Exception {
+        Marshaller marshaller = context(object.getClass()).createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        marshaller.marshal(object, os);
+    }
+    /**
+     * Run tasks in parallel and wait for all of them.
+     * @param <T> task result type.
+     * @param tasks tasks.
+     * @return task results in the same order.
+     * @throws Exception first task error.
+     */
+    protected <T> List<T> invokeAll(final List<? extends Callable<T>> tasks)
+            throws Exception {
+        List<T> results = new ArrayList<>();
+        if (tasks.isEmpty()) {
+            return results;
+        }
+        int threads = Math.min(tasks.size(),
+                Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<T> f : pool.invokeAll(tasks)) {
+                try {
+                    results.add(f.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return results;
+    }
+    /**
+     * Get JAXB context.
+     * @param clazz metadata class.
+     * @return JAXB context.
+     * @throws JAXBException error.
+     */
+    private static JAXBContext context(final Class<?> clazz)
+            throws JAXBException {
+        JAXBContext jc = CONTEXTS.get(clazz);
+        if (jc == null) {
+            jc = JAXBContext.newInstance(clazz);
+            CONTEXTS.put(clazz, jc);
+        }
+        return jc;
+    }
     /**
      * Print table.
      * @param table table with data.
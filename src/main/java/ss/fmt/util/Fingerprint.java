@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+/**
+ * 64-bit FNV-1a fingerprint of a sequence of values.
+ * <p>
+ * Every value is prefixed by its length, so value boundaries are part of
+ * the fingerprint. Null is treated as empty value.
+ * </p>
+ * @author ss
+ */
+public final class Fingerprint {
+    /** FNV offset basis. */
+    private static final long OFFSET = 0xcbf29ce484222325L;
+    /** FNV prime. */
+    private static final long PRIME = 0x100000001b3L;
+    /** Current hash. */
+    private long hash = OFFSET;
+    /**
+     * Add value.
+     * @param value value.
+     * @return this fingerprint.
+     */
+    public Fingerprint add(final String value) {
+        int len = value == null ? 0 : value.length();
+        for (int shift = 0; shift < Integer.SIZE; shift += Byte.SIZE) {
+            mix(len >>> shift);
+        }
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+            mix(c);
+            mix(c >>> Byte.SIZE);
+        }
+        return this;
+    }
+    /**
+     * @return fingerprint value.
+     */
+    public long value() {
+        return hash;
+    }
+    /**
+     * Fingerprint of values.
+     * @param values values.
+     * @return fingerprint.
+     */
+    public static long of(final Iterable<String> values) {
+        Fingerprint f = new Fingerprint();
+        for (String v : values) {
+            f.add(v);
+        }
+        return f.value();
+    }
+    /**
+     * Format fingerprint.
+     * @param value fingerprint.
+     * @return 16 hex digits.
+     */
+    public static String hex(final long value) {
+        String s = Long.toHexString(value);
+        return "0000000000000000".substring(s.length()) + s;
+    }
+    /**
+     * Mix low byte of the value.
+     * @param v value.
+     */
+    private void mix(final int v) {
+        hash ^= v & 0xff;
+        hash *= PRIME;
+    }
+}
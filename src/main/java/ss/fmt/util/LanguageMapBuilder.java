@@ -0,0 +1,198 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.log4j.Logger;
+
+/**
+ * Reorders import rows by language.
+ * <p>
+ * The first accepted row is the header: translation key, description and
+ * one column per language. Every next row is applied to the language map
+ * immediately, so rows can be fed while the import file is still being read.
+ * Rows with a matching {@link RowHash} weren't edited since export and are
+ * skipped first. An optional validator checks every other row before it is
+ * applied. Reported rows are one based as in the spreadsheet.
+ * Not thread safe.
+ * </p>
+ * @author ss
+ */
+public class LanguageMapBuilder {
+    /** Logger. */
+    private static final Logger LOG = Logger
+            .getLogger(LanguageMapBuilder.class);
+    /** First language column. */
+    private static final int FIRST_LANG_COLUMN = 2;
+    /** Import data for every language. */
+    private final Map<String, Map<String, String>> map = new HashMap<>();
+    /** Spreadsheet row number by key. */
+    private final Map<String, Integer> keyRows = new HashMap<>();
+    /** Language columns. */
+    private final Map<Integer, String> langColumns = new HashMap<>();
+    /** Header was read. */
+    private boolean headerRead = false;
+    /** Header is valid. */
+    private boolean valid = false;
+    /** Applied rows counter. */
+    private int rows = 0;
+    /** Skipped unchanged rows counter. */
+    private int skipped = 0;
+    /** Row hash column, negative if absent. */
+    private int hashColumn = -1;
+    /** Inline validator, optional. */
+    private final TranslationValidator validator;
+    /**
+     * Constructor.
+     */
+    public LanguageMapBuilder() {
+        this(null);
+    }
+    /**
+     * Constructor.
+     * @param validator inline validator, can be null.
+     */
+    public LanguageMapBuilder(final TranslationValidator validator) {
+        this.validator = validator;
+    }
+    /**
+     * Accept table row.
+     * @param rowNum row number, zero based.
+     * @param row row cells.
+     */
+    public void accept(final int rowNum, final List<String> row) {
+        int line = rowNum + 1;
+        if (!headerRead) {
+            headerRead = true;
+            readHeader(line, row);
+            return;
+        }
+        if (!valid) {
+            return;
+        }
+        if (row.size() < FIRST_LANG_COLUMN + langColumns.size()) {
+            LOG.warn("invalid row [" + line + "]");
+            return;
+        }
+        if (hashColumn >= 0 && hashColumn < row.size()) {
+            String hash = row.get(hashColumn);
+            if (!hash.isEmpty()
+                    && hash.equals(RowHash.compute(row, hashColumn))) {
+                skipped++;
+                return;
+            }
+        }
+        String tkey = row.get(0);
+        boolean check = validator != null && validator.checkKey(line, tkey);
+        keyRows.put(tkey, line);
+        for (int j = FIRST_LANG_COLUMN; j < row.size(); j++) {
+            String langKey = langColumns.get(j);
+            if (langKey != null) {
+                if (check) {
+                    validator.checkValue(line, tkey, langKey, row.get(j));
+                }
+                map.get(langKey).put(tkey, row.get(j));
+            }
+        }
+        rows++;
+    }
+    /**
+     * @return true if header was read.
+     */
+    public boolean isHeaderRead() {
+        return headerRead;
+    }
+    /**
+     * @return true if header has valid structure.
+     */
+    public boolean isValid() {
+        return valid;
+    }
+    /**
+     * @return languages found in header.
+     */
+    public Set<String> getLanguages() {
+        return map.keySet();
+    }
+    /**
+     * @return applied rows count.
+     */
+    public int getRows() {
+        return rows;
+    }
+    /**
+     * @return skipped unchanged rows count.
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+    /**
+     * Row of the key.
+     * @param key translation key.
+     * @return last spreadsheet row number of the key, one based, -1 if key
+     * wasn't applied.
+     */
+    public int getRow(final String key) {
+        Integer row = keyRows.get(key);
+        return row == null ? -1 : row;
+    }
+    /**
+     * @return import data for every language.
+     */
+    public Map<String, Map<String, String>> getLanguageMap() {
+        return map;
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Read header row.
+     * @param line spreadsheet row number, one based.
+     * @param firstRow header row.
+     */
+    private void readHeader(final int line, final List<String> firstRow) {
+        if (firstRow.size() < FIRST_LANG_COLUMN + 1) {
+            LOG.fatal("invalid table structure! Forced exit...");
+            return;
+        }
+        for (int i = FIRST_LANG_COLUMN; i < firstRow.size(); i++) {
+            String lang = firstRow.get(i);
+            if (lang == null || lang.trim().isEmpty()) {
+                continue;
+            }
+            if (RowHash.HEADER.equals(lang)) {
+                hashColumn = i;
+                continue;
+            }
+            langColumns.put(i, lang);
+            map.put(lang, new HashMap<>());
+            LOG.info("language found [" + lang + "]");
+        }
+        valid = true;
+        if (validator != null) {
+            validator.checkLanguages(line, map.keySet());
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.log4j.Logger;
+
+/**
+ * Merges language maps of several workbooks.
+ * <p>
+ * Workbooks are merged in the given order. A conflict is the same key and
+ * language with different values in two workbooks, it is resolved by the
+ * policy and reported with source workbook and row. Not thread safe.
+ * </p>
+ * @author ss
+ */
+public class LanguageMapMerger {
+    /** Logger. */
+    private static final Logger LOG = Logger
+            .getLogger(LanguageMapMerger.class);
+    /**
+     * Conflict policy.
+     */
+    public enum Policy {
+        /** Value of the last workbook wins. */
+        LAST_WINS,
+        /** Conflicts stop the import. */
+        FAIL,
+        /** Non-empty value wins, last one if both aren't empty. */
+        PREFER_NON_EMPTY
+    }
+    /**
+     * Merged value with origin.
+     */
+    private static class Entry {
+        /** Value. */
+        private final String value;
+        /** Source workbook. */
+        private final String source;
+        /** Spreadsheet row number, one based. */
+        private final int row;
+        /**
+         * Constructor.
+         * @param value value.
+         * @param source source workbook.
+         * @param row spreadsheet row number, one based.
+         */
+        Entry(final String value, final String source, final int row) {
+            this.value = value;
+            this.source = source;
+            this.row = row;
+        }
+    }
+    /**
+     * Merge conflict.
+     */
+    public static class Conflict {
+        /** Language. */
+        private final String language;
+        /** Translation key. */
+        private final String key;
+        /** Kept value. */
+        private final Entry kept;
+        /** Other value. */
+        private final Entry other;
+        /**
+         * Constructor.
+         * @param language language.
+         * @param key translation key.
+         * @param kept kept value.
+         * @param other other value.
+         */
+        Conflict(final String language, final String key, final Entry kept,
+                final Entry other) {
+            this.language = language;
+            this.key = key;
+            this.kept = kept;
+            this.other = other;
+        }
+        /**
+         * @return the language
+         */
+        public String getLanguage() {
+            return language;
+        }
+        /**
+         * @return the key
+         */
+        public String getKey() {
+            return key;
+        }
+        @Override
+        public String toString() {
+            return "key [" + key + "], language [" + language + "], kept ["
+                    + kept.value + "] from " + kept.source + ":" + kept.row
+                    + ", dropped [" + other.value + "] from " + other.source
+                    + ":" + other.row;
+        }
+    }
+    /** Conflict policy. */
+    private final Policy policy;
+    /** Merged values by language and key. */
+    private final Map<String, Map<String, Entry>> entries = new HashMap<>();
+    /** Conflicts. */
+    private final List<Conflict> conflicts = new ArrayList<>();
+    /**
+     * Constructor.
+     * @param policy conflict policy.
+     */
+    public LanguageMapMerger(final Policy policy) {
+        this.policy = policy;
+    }
+    /**
+     * Merge workbook data.
+     * @param source source workbook name.
+     * @param builder workbook data.
+     */
+    public void merge(final String source, final LanguageMapBuilder builder) {
+        builder.getLanguageMap().forEach((lang, tMap) -> {
+            Map<String, Entry> merged = entries.computeIfAbsent(lang,
+                    (k) -> new HashMap<>(tMap.size() * 4 / 3 + 1));
+            tMap.forEach((key, value) -> {
+                Entry next = new Entry(value, source, builder.getRow(key));
+                Entry prev = merged.putIfAbsent(key, next);
+                if (prev != null && !prev.value.equals(value)) {
+                    Entry kept = resolve(prev, next);
+                    merged.put(key, kept);
+                    conflicts.add(new Conflict(lang, key, kept,
+                            kept == next ? prev : next));
+                }
+            });
+        });
+    }
+    /**
+     * @return merge conflicts.
+     */
+    public List<Conflict> getConflicts() {
+        return conflicts;
+    }
+    /**
+     * @return true if conflicts must stop the import.
+     */
+    public boolean isFailed() {
+        return policy == Policy.FAIL && !conflicts.isEmpty();
+    }
+    /**
+     * @return merged import data for every language.
+     */
+    public Map<String, Map<String, String>> getLanguageMap() {
+        Map<String, Map<String, String>> map = new HashMap<>();
+        entries.forEach((lang, merged) -> {
+            Map<String, String> tMap = new HashMap<>(
+                    merged.size() * 4 / 3 + 1);
+            merged.forEach((key, e) -> {
+                tMap.put(key, e.value);
+            });
+            map.put(lang, tMap);
+        });
+        return map;
+    }
+    /**
+     * Log conflicts and write them to CSV file. The file of a previous run
+     * is removed if there are no conflicts.
+     * @param file report file.
+     * @throws Exception error.
+     */
+    public void writeReport(final File file) throws Exception {
+        if (conflicts.isEmpty()) {
+            LOG.info("workbooks merged, no conflicts found");
+            Files.deleteIfExists(file.toPath());
+            return;
+        }
+        try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            pw.println(Csv.line("key", "language", "kept value", "kept source",
+                    "kept row", "dropped value", "dropped source",
+                    "dropped row"));
+            for (Conflict c : conflicts) {
+                LOG.warn("conflict: " + c);
+                pw.println(Csv.line(c.key, c.language, c.kept.value,
+                        c.kept.source, String.valueOf(c.kept.row),
+                        c.other.value, c.other.source,
+                        String.valueOf(c.other.row)));
+            }
+        }
+        LOG.warn("merge conflicts [" + conflicts.size() + "], policy ["
+                + policy + "], report saved in file ["
+                + file.getAbsolutePath() + "]");
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Resolve conflict.
+     * @param prev value of previous workbook.
+     * @param next value of next workbook.
+     * @return kept value.
+     */
+    private Entry resolve(final Entry prev, final Entry next) {
+        switch (policy) {
+            case LAST_WINS:
+                return next;
+            case PREFER_NON_EMPTY:
+                return next.value.isEmpty() ? prev : next;
+            default:
+                return prev;
+        }
+    }
+}
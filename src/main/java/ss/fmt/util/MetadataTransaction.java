@@ -0,0 +1,280 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.log4j.Logger;
+
+/**
+ * Transactional writer for metadata files.
+ * <p>
+ * Every file is staged into a temporary file in the target directory, so
+ * the original stays untouched until {@link #commit()}. Commit flushes all
+ * staged files to disk in one batch and then moves them into place with
+ * atomic renames. Staging is thread safe, files can be produced in parallel.
+ * </p>
+ * @author ss
+ */
+public class MetadataTransaction implements AutoCloseable {
+    /** Logger. */
+    private static final Logger LOG = Logger
+            .getLogger(MetadataTransaction.class);
+    /** Temporary file suffix. */
+    private static final String TMP_SUFFIX = ".tmp";
+    /**
+     * File content producer.
+     */
+    public interface Content {
+        /**
+         * Write file content.
+         * @param os output stream.
+         * @throws Exception error.
+         */
+        void writeTo(OutputStream os) throws Exception;
+    }
+    /**
+     * Staged file.
+     */
+    private static class StagedFile {
+        /** Target file. */
+        private final File target;
+        /** Temporary file with new content. */
+        private final File temp;
+        /**
+         * Constructor.
+         * @param target target file.
+         * @param temp temporary file.
+         */
+        StagedFile(final File target, final File temp) {
+            this.target = target;
+            this.temp = temp;
+        }
+    }
+    /** Backup directory, can be null. */
+    private final File backupDir;
+    /** Staged files. */
+    private final List<StagedFile> staged = new ArrayList<>();
+    /** Transaction state. */
+    private boolean completed = false;
+    /**
+     * Constructor.
+     * @param backupDir directory for original files backup, optional. When
+     * set, original files are copied there before replacement and restored
+     * if commit fails.
+     */
+    public MetadataTransaction(final File backupDir) {
+        this.backupDir = backupDir;
+    }
+    /**
+     * Write new file content to temporary file.
+     * @param target target file.
+     * @param content content producer.
+     * @throws Exception error.
+     */
+    public void stage(final File target, final Content content)
+            throws Exception {
+        File dir = target.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile("." + target.getName() + ".",
+                TMP_SUFFIX, dir);
+        try (OutputStream os = new BufferedOutputStream(
+                new FileOutputStream(temp))) {
+            content.writeTo(os);
+        } catch (Exception e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+        synchronized (staged) {
+            if (completed) {
+                Files.deleteIfExists(temp.toPath());
+                throw new IllegalStateException("transaction is completed");
+            }
+            staged.add(new StagedFile(target, temp));
+        }
+    }
+    /**
+     * Move all staged files into place.
+     * @throws IOException error.
+     */
+    public void commit() throws IOException {
+        synchronized (staged) {
+            if (completed) {
+                throw new IllegalStateException("transaction is completed");
+            }
+            completed = true;
+            for (StagedFile sf : staged) {
+                try (FileChannel ch = FileChannel.open(sf.temp.toPath(),
+                        StandardOpenOption.WRITE)) {
+                    ch.force(true);
+                }
+            }
+            if (backupDir != null) {
+                backup();
+            }
+            List<StagedFile> moved = new ArrayList<>();
+            try {
+                for (StagedFile sf : staged) {
+                    move(sf.temp, sf.target);
+                    moved.add(sf);
+                }
+            } catch (IOException e) {
+                LOG.fatal("commit failed, " + moved.size() + " of "
+                        + staged.size() + " files replaced", e);
+                if (backupDir != null) {
+                    restore(moved);
+                }
+                deleteTemp();
+                throw e;
+            }
+            Set<File> dirs = new LinkedHashSet<>();
+            staged.forEach((sf) -> {
+                dirs.add(sf.target.getAbsoluteFile().getParentFile());
+            });
+            dirs.forEach(this::syncDirectory);
+            LOG.info("transaction committed, files [" + staged.size() + "]");
+        }
+    }
+    /**
+     * Remove not committed temporary files.
+     * @throws IOException error.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (staged) {
+            if (!completed) {
+                completed = true;
+                deleteTemp();
+                if (!staged.isEmpty()) {
+                    LOG.warn("transaction rolled back, files ["
+                            + staged.size() + "] left untouched");
+                }
+            }
+        }
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Copy original files to backup directory.
+     * @throws IOException error.
+     */
+    private void backup() throws IOException {
+        for (StagedFile sf : staged) {
+            if (sf.target.exists()) {
+                File copy = backupFile(sf.target);
+                Files.createDirectories(copy.getParentFile().toPath());
+                Files.copy(sf.target.toPath(), copy.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.COPY_ATTRIBUTES);
+            }
+        }
+        LOG.info("original files saved to [" + backupDir.getAbsolutePath()
+                + "]");
+    }
+    /**
+     * Restore already replaced files from backup.
+     * @param moved replaced files.
+     */
+    private void restore(final List<StagedFile> moved) {
+        for (StagedFile sf : moved) {
+            File copy = backupFile(sf.target);
+            try {
+                if (copy.exists()) {
+                    Files.copy(copy.toPath(), sf.target.toPath(),
+                            StandardCopyOption.REPLACE_EXISTING);
+                    LOG.warn("file restored [" + sf.target.getAbsolutePath()
+                            + "]");
+                }
+            } catch (IOException e) {
+                LOG.fatal("can't restore file ["
+                        + sf.target.getAbsolutePath() + "] from backup ["
+                        + copy.getAbsolutePath() + "]", e);
+            }
+        }
+    }
+    /**
+     * Backup file for target, keeps project folder name.
+     * @param target target file.
+     * @return backup file.
+     */
+    private File backupFile(final File target) {
+        File parent = target.getAbsoluteFile().getParentFile();
+        return new File(new File(backupDir, parent.getName()),
+                target.getName());
+    }
+    /**
+     * Delete temporary files.
+     */
+    private void deleteTemp() {
+        for (StagedFile sf : staged) {
+            try {
+                Files.deleteIfExists(sf.temp.toPath());
+            } catch (IOException e) {
+                LOG.warn("can't delete temporary file ["
+                        + sf.temp.getAbsolutePath() + "]", e);
+            }
+        }
+    }
+    /**
+     * Atomic move, falls back to plain replace when not supported.
+     * @param from source file.
+     * @param to target file.
+     * @throws IOException error.
+     */
+    private void move(final File from, final File to) throws IOException {
+        try {
+            Files.move(from.toPath(), to.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            LOG.warn("atomic move not supported [" + to.getAbsolutePath()
+                    + "]");
+            Files.move(from.toPath(), to.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    /**
+     * Flush directory entries, not supported on some platforms.
+     * @param dir directory.
+     */
+    private void syncDirectory(final File dir) {
+        try (FileChannel ch = FileChannel.open(dir.toPath(),
+                StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException e) {
+            LOG.debug("directory sync is not supported ["
+                    + dir.getAbsolutePath() + "]");
+        }
+    }
+}
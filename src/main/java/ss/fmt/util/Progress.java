@@ -0,0 +1,270 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.log4j.Logger;
+
+/**
+ * Progress reporting and cooperative cancellation.
+ * <p>
+ * Workers only increment counters, a timer thread logs processed items,
+ * bytes, rate and ETA at a fixed interval. When cancellable, an interrupt
+ * (SIGINT) sets the cancelled flag, the next {@link #increment()} or
+ * {@link #checkCancelled()} throws {@link CancellationException}, and the
+ * JVM waits until the task is closed so it can clean up.
+ * </p>
+ * @author ss
+ */
+public class Progress implements AutoCloseable {
+    /** Logger. */
+    private static final Logger LOG = Logger.getLogger(Progress.class);
+    /** Report interval. */
+    private static final long INTERVAL_MS = 5000;
+    /** Max time to wait for cleanup after interrupt. */
+    private static final long CLEANUP_TIMEOUT_MS = 30000;
+    /** Bytes in megabyte. */
+    private static final double MB = 1024 * 1024;
+    /** Task name. */
+    private final String task;
+    /** Report timer, null when disabled. */
+    private final ScheduledExecutorService timer;
+    /** Shutdown hook, null when not cancellable. */
+    private final Thread hook;
+    /** Released when task is closed. */
+    private final CountDownLatch done = new CountDownLatch(1);
+    /** Processed items in current phase. */
+    private final LongAdder items = new LongAdder();
+    /** Read bytes. */
+    private final LongAdder bytesRead = new LongAdder();
+    /** Written bytes. */
+    private final LongAdder bytesWritten = new LongAdder();
+    /** Current phase. */
+    private volatile String phase = "";
+    /** Expected items in current phase, negative if unknown. */
+    private volatile long total = -1;
+    /** Phase start time. */
+    private volatile long phaseStart = System.nanoTime();
+    /** Cancelled flag. */
+    private volatile boolean cancelled = false;
+    /**
+     * Constructor.
+     * @param task task name.
+     * @param report start report timer.
+     * @param cancellable cancel task on interrupt.
+     */
+    private Progress(final String task, final boolean report,
+            final boolean cancellable) {
+        this.task = task;
+        if (report) {
+            timer = Executors.newSingleThreadScheduledExecutor((r) -> {
+                Thread t = new Thread(r, "progress-" + task);
+                t.setDaemon(true);
+                return t;
+            });
+            timer.scheduleAtFixedRate(this::report, INTERVAL_MS, INTERVAL_MS,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            timer = null;
+        }
+        if (cancellable) {
+            hook = new Thread(this::interrupted, "cancel-" + task);
+            Runtime.getRuntime().addShutdownHook(hook);
+        } else {
+            hook = null;
+        }
+    }
+    /**
+     * Start progress reporting.
+     * @param task task name.
+     * @param cancellable cancel task on interrupt.
+     * @return progress.
+     */
+    public static Progress start(final String task,
+            final boolean cancellable) {
+        return new Progress(task, true, cancellable);
+    }
+    /**
+     * Progress without reporting and cancellation.
+     * @return progress.
+     */
+    public static Progress disabled() {
+        return new Progress("", false, false);
+    }
+    /**
+     * Start next phase.
+     * @param name phase name.
+     * @param expected expected items, negative if unknown.
+     */
+    public void phase(final String name, final long expected) {
+        checkCancelled();
+        if (timer != null && !phase.isEmpty()) {
+            report();
+        }
+        items.reset();
+        total = expected;
+        phaseStart = System.nanoTime();
+        phase = name;
+    }
+    /**
+     * Item processed.
+     */
+    public void increment() {
+        items.increment();
+        checkCancelled();
+    }
+    /**
+     * Items processed.
+     * @param n items count.
+     */
+    public void add(final long n) {
+        items.add(n);
+        checkCancelled();
+    }
+    /**
+     * @throws CancellationException if task was cancelled.
+     */
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException(task + " cancelled");
+        }
+    }
+    /**
+     * @return true if task was cancelled.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    /**
+     * Count bytes read from the stream.
+     * @param in input stream.
+     * @return tracked stream.
+     */
+    public InputStream track(final InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytesRead.increment();
+                }
+                return b;
+            }
+            @Override
+            public int read(final byte[] b, final int off, final int len)
+                    throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    bytesRead.add(n);
+                }
+                return n;
+            }
+        };
+    }
+    /**
+     * Count bytes written to the stream.
+     * @param out output stream.
+     * @return tracked stream.
+     */
+    public OutputStream track(final OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(final int b) throws IOException {
+                out.write(b);
+                bytesWritten.increment();
+            }
+            @Override
+            public void write(final byte[] b, final int off, final int len)
+                    throws IOException {
+                out.write(b, off, len);
+                bytesWritten.add(len);
+            }
+        };
+    }
+    /**
+     * Stop reporting, log summary.
+     */
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+            report();
+        }
+        if (hook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException e) {
+                LOG.debug("shutdown in progress");
+            }
+        }
+        done.countDown();
+    }
+    /**
+     * Shutdown hook, cancel task and wait for cleanup.
+     */
+    void interrupted() {
+        cancelled = true;
+        LOG.warn(task + " interrupted, waiting for cleanup...");
+        try {
+            if (!done.await(CLEANUP_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                LOG.warn(task + " cleanup timeout");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Log progress.
+     */
+    private void report() {
+        long processed = items.sum();
+        double seconds = (System.nanoTime() - phaseStart) / 1e9;
+        double rate = seconds > 0 ? processed / seconds : 0;
+        StringBuilder sb = new StringBuilder();
+        sb.append(task).append(" [").append(phase).append("] processed [")
+                .append(processed);
+        if (total >= 0) {
+            sb.append(" of ").append(total);
+        }
+        sb.append("], rate [").append(Math.round(rate)).append("/s]");
+        sb.append(String.format(", read [%.1f MB], written [%.1f MB]",
+                bytesRead.sum() / MB, bytesWritten.sum() / MB));
+        if (total > processed && rate > 0) {
+            sb.append(", ETA [").append(Math.round((total - processed) / rate))
+                    .append(" s]");
+        }
+        LOG.info(sb.toString());
+    }
+}
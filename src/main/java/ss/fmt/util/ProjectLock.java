@@ -0,0 +1,323 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.apache.log4j.Logger;
+
+/**
+ * Cooperative project lock.
+ * <p>
+ * Readers of the project metadata take a shared lock, writers take an
+ * exclusive one. Processes are coordinated by {@link FileChannel#lock} on a
+ * lock file in the {@link WorkFolder}, outside the metadata, threads of one
+ * JVM by a read-write lock, because file locks are held per process. Locks
+ * are released by the thread that acquired them.
+ * </p>
+ * @author ss
+ */
+public final class ProjectLock implements AutoCloseable {
+    /** Logger. */
+    private static final Logger LOG = Logger.getLogger(ProjectLock.class);
+    /** Lock file name in the work folder. */
+    public static final String LOCK_FILE = "project.lock";
+    /** Default wait timeout, ms. */
+    public static final long DEFAULT_TIMEOUT = 60000;
+    /** First file lock retry delay, ms. */
+    private static final long MIN_RETRY_DELAY = 10;
+    /** Max file lock retry delay, ms. */
+    private static final long MAX_RETRY_DELAY = 500;
+    /** Lock state by project. */
+    private static final Map<String, ProjectState> PROJECTS =
+            new ConcurrentHashMap<>();
+    /** Acquired locks. */
+    private static final AtomicLong ACQUIRED = new AtomicLong();
+    /** Acquired locks that had to wait. */
+    private static final AtomicLong CONTENDED = new AtomicLong();
+    /** Failed acquisitions. */
+    private static final AtomicLong TIMEOUTS = new AtomicLong();
+    /** Total wait time, ns. */
+    private static final AtomicLong WAIT_NANOS = new AtomicLong();
+    /** Max wait time, ns. */
+    private static final AtomicLong MAX_WAIT_NANOS = new AtomicLong();
+    /**
+     * Lock state of one project.
+     */
+    private static final class ProjectState {
+        /** Lock file. */
+        private final File file;
+        /** Lock between threads of this JVM. */
+        private final ReentrantReadWriteLock threads =
+                new ReentrantReadWriteLock(true);
+        /** Guards file lock fields. */
+        private final ReentrantLock guard = new ReentrantLock();
+        /** Lock file channel. */
+        private FileChannel channel;
+        /** File lock. */
+        private FileLock fileLock;
+        /** Holders of the file lock. */
+        private int holders;
+        /**
+         * Constructor.
+         * @param file lock file.
+         */
+        ProjectState(final File file) {
+            this.file = file;
+        }
+    }
+    /** Project state. */
+    private final ProjectState state;
+    /** Shared lock. */
+    private final boolean shared;
+    /** Thread lock. */
+    private final Lock threadLock;
+    /** Wait time, ns. */
+    private final long waitNanos;
+    /** Acquire time, ns. */
+    private final long acquired;
+    /** Lock is released. */
+    private boolean released = false;
+    /**
+     * Constructor, acquires the lock.
+     * @param state project state.
+     * @param shared shared lock.
+     * @param timeout wait timeout, ms.
+     * @throws IOException lock file error.
+     * @throws TimeoutException lock isn't acquired in time.
+     * @throws InterruptedException interrupted.
+     */
+    private ProjectLock(final ProjectState state, final boolean shared,
+            final long timeout) throws IOException, TimeoutException,
+            InterruptedException {
+        this.state = state;
+        this.shared = shared;
+        this.threadLock = shared ? state.threads.readLock()
+                : state.threads.writeLock();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+        boolean contended = !threadLock.tryLock();
+        if (contended && !threadLock.tryLock(remaining(deadline),
+                TimeUnit.NANOSECONDS)) {
+            throw timeout(state, timeout);
+        }
+        try {
+            if (!state.guard.tryLock(remaining(deadline),
+                    TimeUnit.NANOSECONDS)) {
+                throw timeout(state, timeout);
+            }
+            try {
+                if (state.holders == 0) {
+                    contended |= lockFile(deadline, timeout);
+                }
+                state.holders++;
+            } finally {
+                state.guard.unlock();
+            }
+        } catch (IOException | TimeoutException | InterruptedException
+                | RuntimeException e) {
+            threadLock.unlock();
+            throw e;
+        }
+        acquired = System.nanoTime();
+        waitNanos = acquired - start;
+        ACQUIRED.incrementAndGet();
+        WAIT_NANOS.addAndGet(waitNanos);
+        MAX_WAIT_NANOS.accumulateAndGet(waitNanos, Math::max);
+        if (contended) {
+            CONTENDED.incrementAndGet();
+            LOG.info(mode() + " project lock acquired after ["
+                    + TimeUnit.NANOSECONDS.toMillis(waitNanos) + " ms]");
+        }
+    }
+    /**
+     * Acquire shared lock for reading project metadata.
+     * @param projectFolder project folder.
+     * @param timeout wait timeout, ms.
+     * @return lock.
+     * @throws Exception lock isn't acquired, {@link TimeoutException} if
+     * the project is locked longer than timeout.
+     */
+    public static ProjectLock shared(final File projectFolder,
+            final long timeout) throws Exception {
+        return new ProjectLock(state(projectFolder), true, timeout);
+    }
+    /**
+     * Acquire exclusive lock for writing project metadata.
+     * @param projectFolder project folder.
+     * @param timeout wait timeout, ms.
+     * @return lock.
+     * @throws Exception lock isn't acquired, {@link TimeoutException} if
+     * the project is locked longer than timeout.
+     */
+    public static ProjectLock exclusive(final File projectFolder,
+            final long timeout) throws Exception {
+        return new ProjectLock(state(projectFolder), false, timeout);
+    }
+    /**
+     * @return wait time, ms.
+     */
+    public long getWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos);
+    }
+    /**
+     * Lock contention summary of this JVM.
+     * @return metrics line.
+     */
+    public static String metrics() {
+        return "project locks acquired [" + ACQUIRED.get() + "], contended ["
+                + CONTENDED.get() + "], timeouts [" + TIMEOUTS.get()
+                + "], total wait ["
+                + TimeUnit.NANOSECONDS.toMillis(WAIT_NANOS.get())
+                + " ms], max wait ["
+                + TimeUnit.NANOSECONDS.toMillis(MAX_WAIT_NANOS.get())
+                + " ms]";
+    }
+    /**
+     * Release the lock.
+     * @throws IOException lock file error.
+     */
+    @Override
+    public void close() throws IOException {
+        if (released) {
+            return;
+        }
+        released = true;
+        state.guard.lock();
+        try {
+            if (--state.holders == 0) {
+                try {
+                    state.fileLock.release();
+                } finally {
+                    state.channel.close();
+                    state.fileLock = null;
+                    state.channel = null;
+                }
+            }
+        } finally {
+            state.guard.unlock();
+            threadLock.unlock();
+        }
+        LOG.debug(mode() + " project lock released, held ["
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - acquired)
+                + " ms]");
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Get project state.
+     * @param projectFolder project folder.
+     * @return project state.
+     * @throws IOException path error.
+     */
+    private static ProjectState state(final File projectFolder)
+            throws IOException {
+        File dir = projectFolder.getCanonicalFile();
+        return PROJECTS.computeIfAbsent(dir.getPath(),
+                (k) -> new ProjectState(new File(WorkFolder.of(dir),
+                        LOCK_FILE)));
+    }
+    /**
+     * Lock the lock file, retries until deadline. Guard is held.
+     * @param deadline deadline, ns.
+     * @param timeout wait timeout, ms.
+     * @return true if lock had to wait.
+     * @throws IOException lock file error.
+     * @throws TimeoutException lock isn't acquired in time.
+     * @throws InterruptedException interrupted.
+     */
+    private boolean lockFile(final long deadline, final long timeout)
+            throws IOException, TimeoutException, InterruptedException {
+        Files.createDirectories(state.file.getParentFile().toPath());
+        FileChannel ch = FileChannel.open(state.file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long delay = MIN_RETRY_DELAY;
+            boolean waited = false;
+            FileLock lock = ch.tryLock(0, Long.MAX_VALUE, shared);
+            while (lock == null) {
+                long left = remaining(deadline);
+                if (left <= 0) {
+                    throw timeout(state, timeout);
+                }
+                if (!waited) {
+                    waited = true;
+                    LOG.info("project is locked by another process, waiting "
+                            + "for " + mode() + " lock ["
+                            + state.file.getAbsolutePath() + "]");
+                }
+                Thread.sleep(Math.min(delay,
+                        TimeUnit.NANOSECONDS.toMillis(left) + 1));
+                delay = Math.min(delay * 2, MAX_RETRY_DELAY);
+                lock = ch.tryLock(0, Long.MAX_VALUE, shared);
+            }
+            state.channel = ch;
+            state.fileLock = lock;
+            return waited;
+        } catch (IOException | TimeoutException | InterruptedException
+                | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+    /**
+     * @return lock mode name.
+     */
+    private String mode() {
+        return shared ? "shared" : "exclusive";
+    }
+    /**
+     * Remaining time.
+     * @param deadline deadline, ns.
+     * @return remaining time, ns.
+     */
+    private static long remaining(final long deadline) {
+        return deadline - System.nanoTime();
+    }
+    /**
+     * Create timeout error.
+     * @param state project state.
+     * @param timeout wait timeout, ms.
+     * @return error.
+     */
+    private static TimeoutException timeout(final ProjectState state,
+            final long timeout) {
+        TIMEOUTS.incrementAndGet();
+        return new TimeoutException("project lock isn't acquired in ["
+                + timeout + " ms], lock file ["
+                + state.file.getAbsolutePath() + "]");
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.util.List;
+
+/**
+ * Hash of exported row values.
+ * <p>
+ * Export stores it in a hidden column, import recomputes it and skips rows
+ * that weren't edited.
+ * </p>
+ * @author ss
+ */
+public final class RowHash {
+    /** Row hash column header. */
+    public static final String HEADER = "#row-hash";
+    /**
+     * Private constructor.
+     */
+    private RowHash() {
+    }
+    /**
+     * Compute row hash.
+     * @param row row values.
+     * @param exclude index of the hash column, negative if absent.
+     * @return hash, 16 hex digits.
+     */
+    public static String compute(final List<String> row, final int exclude) {
+        Fingerprint f = new Fingerprint();
+        for (int i = 0; i < row.size(); i++) {
+            if (i != exclude) {
+                f.add(row.get(i));
+            }
+        }
+        return Fingerprint.hex(f.value());
+    }
+}
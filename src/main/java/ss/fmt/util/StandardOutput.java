@@ -0,0 +1,82 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Standard output reserved for exported data.
+ * <p>
+ * Exports to '-' write binary workbooks to the process standard output, so
+ * nothing else may be printed there. {@link #redirect()} points
+ * {@link System#out} to {@link System#err}: the banner, console logging and
+ * printed tables go to the error stream. The data is written to the file
+ * descriptor directly, not through {@link java.io.PrintStream}, which
+ * swallows write errors.
+ * </p>
+ * @author ss
+ */
+public final class StandardOutput {
+    /** Argument value for standard output. */
+    public static final String ARG = "-";
+    /**
+     * Utility class.
+     */
+    private StandardOutput() {
+    }
+    /**
+     * Check command line arguments.
+     * @param args command line arguments.
+     * @return true if some argument value is standard output.
+     */
+    public static boolean requested(final String[] args) {
+        for (String arg : args) {
+            if (ARG.equals(arg) || arg.endsWith("=" + ARG)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    /**
+     * Send everything printed to {@link System#out} to the error stream.
+     */
+    public static synchronized void redirect() {
+        if (System.out != System.err) {
+            System.out.flush();
+            System.setOut(System.err);
+        }
+    }
+    /**
+     * Redirect {@link System#out} and open the standard output for data.
+     * @return buffered stream, write errors are thrown, must be closed.
+     */
+    public static OutputStream open() {
+        redirect();
+        return new BufferedOutputStream(new FileOutputStream(
+                FileDescriptor.out));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.log4j.Logger;
+import ss.fmt.jaxb.model.CustomLabel;
+
+/**
+ * Translation coverage of custom labels.
+ * <p>
+ * Labels are numbered by their position in the list. Presence of a value is
+ * computed once per language as a bitset over these ordinals, gaps and
+ * coverage per category are derived from the bitsets with bulk operations.
+ * </p>
+ * @author ss
+ */
+public class TranslationCoverage {
+    /** Logger. */
+    private static final Logger LOG = Logger
+            .getLogger(TranslationCoverage.class);
+    /** Category name for labels without category. */
+    public static final String UNCATEGORIZED = "uncategorized";
+    /** Summary row for all categories. */
+    private static final String ALL = "*";
+    /** Analyzed labels. */
+    private final List<CustomLabel> labels;
+    /** Value presence by language. */
+    private final Map<String, BitSet> present = new TreeMap<>();
+    /** Labels by category. */
+    private final Map<String, BitSet> categories = new TreeMap<>();
+    /** Labels with at least one missing value. */
+    private final BitSet gaps = new BitSet();
+    /**
+     * Constructor.
+     * @param labels analyzed labels.
+     * @param translationFiles translations by language.
+     */
+    public TranslationCoverage(final List<CustomLabel> labels,
+            final Map<String, Map<String, String>> translationFiles) {
+        this.labels = labels;
+        int size = labels.size();
+        for (int i = 0; i < size; i++) {
+            CustomLabel cl = labels.get(i);
+            String category = cl.getCategories() == null
+                    ? UNCATEGORIZED : cl.getCategories();
+            categories.computeIfAbsent(category, (k) -> new BitSet(size))
+                    .set(i);
+        }
+        translationFiles.forEach((lang, tMap) -> {
+            BitSet bits = new BitSet(size);
+            for (int i = 0; i < size; i++) {
+                CustomLabel cl = labels.get(i);
+                String value = lang.equals(cl.getLanguage())
+                        ? cl.getValue() : tMap.get(cl.getFullName());
+                if (value != null && !value.isEmpty()) {
+                    bits.set(i);
+                }
+            }
+            present.put(lang, bits);
+            BitSet missing = (BitSet) bits.clone();
+            missing.flip(0, size);
+            gaps.or(missing);
+        });
+    }
+    /**
+     * @return labels with at least one missing value, in original order.
+     */
+    public List<CustomLabel> getMissing() {
+        List<CustomLabel> result = new ArrayList<>(gaps.cardinality());
+        for (int i = gaps.nextSetBit(0); i >= 0; i = gaps.nextSetBit(i + 1)) {
+            result.add(labels.get(i));
+        }
+        return result;
+    }
+    /**
+     * Write coverage summary per language and category, category '*'
+     * stands for all labels.
+     * @param file CSV file.
+     * @throws Exception error.
+     */
+    public void writeSummary(final File file) throws Exception {
+        try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            pw.println(Csv.line("language", "category", "labels",
+                    "translated", "missing", "coverage"));
+            for (Map.Entry<String, BitSet> lang : present.entrySet()) {
+                BitSet bits = lang.getValue();
+                int translated = bits.cardinality();
+                pw.println(row(lang.getKey(), ALL, labels.size(), translated));
+                LOG.info("coverage [" + lang.getKey() + "] " + translated
+                        + " of " + labels.size() + " ("
+                        + percent(translated, labels.size()) + "%)");
+                for (Map.Entry<String, BitSet> cat : categories.entrySet()) {
+                    BitSet both = (BitSet) bits.clone();
+                    both.and(cat.getValue());
+                    pw.println(row(lang.getKey(), cat.getKey(),
+                            cat.getValue().cardinality(), both.cardinality()));
+                }
+            }
+        }
+        LOG.info("labels with missing translations [" + gaps.cardinality()
+                + "], coverage summary [" + file.getAbsolutePath() + "]");
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Summary CSV line.
+     * @param lang language.
+     * @param category category.
+     * @param total labels count.
+     * @param translated translated labels count.
+     * @return CSV line.
+     */
+    private static String row(final String lang, final String category,
+            final int total, final int translated) {
+        return Csv.line(lang, category, String.valueOf(total),
+                String.valueOf(translated),
+                String.valueOf(total - translated), percent(translated, total));
+    }
+    /**
+     * Format percentage.
+     * @param part part.
+     * @param total total.
+     * @return percentage with one decimal.
+     */
+    private static String percent(final int part, final int total) {
+        return total == 0 ? "100.0"
+                : String.format(Locale.ROOT, "%.1f",
+                        part * 100.0 / total);
+    }
+}
@@ -0,0 +1,409 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.log4j.Logger;
+import ss.fmt.jaxb.model.CustomLabel;
+import ss.fmt.jaxb.model.CustomLabels;
+
+/**
+ * Translator input validator.
+ * <p>
+ * Validates import rows inline while they are read. Source values are
+ * indexed once, so every check is a hash lookup: placeholders of the source
+ * value are kept as a bit mask per key. Not thread safe, workbooks read in
+ * parallel get their own {@link #fork(String)} sharing the index and the
+ * collected issues.
+ * </p>
+ * @author ss
+ */
+public class TranslationValidator {
+    /** Logger. */
+    private static final Logger LOG = Logger
+            .getLogger(TranslationValidator.class);
+    /** Salesforce custom label value length limit. */
+    public static final int MAX_VALUE_LENGTH = 1000;
+    /**
+     * Validation mode.
+     */
+    public enum Mode {
+        /** Stop on first issue. */
+        FAIL_FAST,
+        /** Collect all issues and continue. */
+        REPORT_ONLY
+    }
+    /**
+     * Issue type.
+     */
+    public enum IssueType {
+        /** Placeholders differ from source value. */
+        PLACEHOLDER_MISMATCH,
+        /** Value is too long. */
+        VALUE_TOO_LONG,
+        /** Key occurs more than once. */
+        DUPLICATE_KEY,
+        /** Key doesn't exist in metadata. */
+        UNKNOWN_KEY,
+        /** Language has no metadata file. */
+        UNKNOWN_LANGUAGE
+    }
+    /**
+     * Validation issue.
+     */
+    public static class Issue {
+        /** Source workbook, can be null. */
+        private final String source;
+        /** Spreadsheet row number, one based. */
+        private final int row;
+        /** Translation key. */
+        private final String key;
+        /** Language. */
+        private final String language;
+        /** Issue type. */
+        private final IssueType type;
+        /** Details. */
+        private final String message;
+        /**
+         * Constructor.
+         * @param source source workbook, can be null.
+         * @param row spreadsheet row number, one based.
+         * @param key translation key.
+         * @param language language.
+         * @param type issue type.
+         * @param message details.
+         */
+        Issue(final String source, final int row, final String key,
+                final String language, final IssueType type,
+                final String message) {
+            this.source = source;
+            this.row = row;
+            this.key = key;
+            this.language = language;
+            this.type = type;
+            this.message = message;
+        }
+        /**
+         * @return the source
+         */
+        public String getSource() {
+            return source;
+        }
+        /**
+         * @return the row
+         */
+        public int getRow() {
+            return row;
+        }
+        /**
+         * @return the key
+         */
+        public String getKey() {
+            return key;
+        }
+        /**
+         * @return the language
+         */
+        public String getLanguage() {
+            return language;
+        }
+        /**
+         * @return the type
+         */
+        public IssueType getType() {
+            return type;
+        }
+        /**
+         * @return the message
+         */
+        public String getMessage() {
+            return message;
+        }
+        @Override
+        public String toString() {
+            return type + ": " + (source == null ? ""
+                    : "source [" + source + "], ") + "row [" + row
+                    + "], key [" + key + "], language [" + language + "], "
+                    + message;
+        }
+    }
+    /**
+     * Validation error in fail fast mode.
+     */
+    public static class ValidationException extends RuntimeException {
+        /** Issue. */
+        private final Issue issue;
+        /**
+         * Constructor.
+         * @param issue issue.
+         */
+        ValidationException(final Issue issue) {
+            super(issue.toString());
+            this.issue = issue;
+        }
+        /**
+         * @return the issue
+         */
+        public Issue getIssue() {
+            return issue;
+        }
+    }
+    /** Validation mode. */
+    private final Mode mode;
+    /** Source value placeholders by key. */
+    private final Map<String, Long> placeholders;
+    /** Languages with metadata. */
+    private final Set<String> languages;
+    /** Source workbook, can be null. */
+    private final String source;
+    /** Keys found in import data. */
+    private final Set<String> seenKeys = new HashSet<>();
+    /** Issues, shared with forks. */
+    private final List<Issue> issues;
+    /** Issues counter by type, shared with forks. */
+    private final Map<IssueType, Integer> counters;
+    /**
+     * Constructor.
+     * @param customLabels source custom labels.
+     * @param languages languages with metadata.
+     * @param mode validation mode.
+     */
+    public TranslationValidator(final CustomLabels customLabels,
+            final Collection<String> languages, final Mode mode) {
+        this.mode = mode;
+        this.source = null;
+        this.issues = new ArrayList<>();
+        this.counters = new EnumMap<>(IssueType.class);
+        this.languages = new HashSet<>(languages);
+        this.placeholders = new HashMap<>(
+                customLabels.getLabels().size() * 4 / 3 + 1);
+        for (CustomLabel cl : customLabels.getLabels()) {
+            placeholders.put(cl.getFullName(), placeholders(cl.getValue()));
+            if (cl.getLanguage() != null) {
+                this.languages.add(cl.getLanguage());
+            }
+        }
+    }
+    /**
+     * Fork constructor.
+     * @param parent parent validator.
+     * @param source source workbook.
+     */
+    private TranslationValidator(final TranslationValidator parent,
+            final String source) {
+        this.mode = parent.mode;
+        this.placeholders = parent.placeholders;
+        this.languages = parent.languages;
+        this.source = source;
+        this.issues = parent.issues;
+        this.counters = parent.counters;
+    }
+    /**
+     * Create validator for another workbook. Duplicate keys are checked per
+     * workbook, issues are collected by this validator.
+     * @param workbook source workbook name.
+     * @return new validator.
+     */
+    public TranslationValidator fork(final String workbook) {
+        return new TranslationValidator(this, workbook);
+    }
+    /**
+     * Check import languages.
+     * @param row header row number, one based.
+     * @param importLanguages languages from header.
+     */
+    public void checkLanguages(final int row,
+            final Collection<String> importLanguages) {
+        for (String lang : importLanguages) {
+            if (!languages.contains(lang)) {
+                report(row, null, lang, IssueType.UNKNOWN_LANGUAGE,
+                        "no metadata for language");
+            }
+        }
+    }
+    /**
+     * Check key.
+     * @param row spreadsheet row number, one based.
+     * @param key translation key.
+     * @return true if values of the key can be checked.
+     */
+    public boolean checkKey(final int row, final String key) {
+        if (!seenKeys.add(key)) {
+            report(row, key, null, IssueType.DUPLICATE_KEY,
+                    "key occurs more than once");
+        }
+        if (!placeholders.containsKey(key)) {
+            report(row, key, null, IssueType.UNKNOWN_KEY,
+                    "key doesn't exist in metadata");
+            return false;
+        }
+        return true;
+    }
+    /**
+     * Check value.
+     * @param row spreadsheet row number, one based.
+     * @param key translation key, must be known.
+     * @param lang language.
+     * @param value value.
+     */
+    public void checkValue(final int row, final String key, final String lang,
+            final String value) {
+        if (value.isEmpty()) {
+            return;
+        }
+        if (value.length() > MAX_VALUE_LENGTH) {
+            report(row, key, lang, IssueType.VALUE_TOO_LONG, "length ["
+                    + value.length() + "] exceeds [" + MAX_VALUE_LENGTH + "]");
+        }
+        long expected = placeholders.get(key);
+        long actual = placeholders(value);
+        if (expected != actual) {
+            report(row, key, lang, IssueType.PLACEHOLDER_MISMATCH,
+                    "expected " + describe(expected) + ", found "
+                            + describe(actual));
+        }
+    }
+    /**
+     * @return collected issues.
+     */
+    public List<Issue> getIssues() {
+        synchronized (issues) {
+            return new ArrayList<>(issues);
+        }
+    }
+    /**
+     * Log summary and write issues to CSV file. The file of a previous run
+     * is removed if there are no issues.
+     * @param file report file.
+     * @throws Exception error.
+     */
+    public void writeReport(final File file) throws Exception {
+        synchronized (issues) {
+            writeReportLocked(file);
+        }
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Write report, issues lock is held.
+     * @param file report file.
+     * @throws Exception error.
+     */
+    private void writeReportLocked(final File file) throws Exception {
+        if (issues.isEmpty()) {
+            LOG.info("validation passed, no issues found");
+            Files.deleteIfExists(file.toPath());
+            return;
+        }
+        counters.forEach((type, count) -> {
+            LOG.warn("validation issues [" + type + "]: " + count);
+        });
+        try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            pw.println(Csv.line("row", "key", "language", "type", "message",
+                    "source"));
+            for (Issue issue : issues) {
+                pw.println(Csv.line(String.valueOf(issue.getRow()),
+                        issue.getKey(), issue.getLanguage(),
+                        issue.getType().name(), issue.getMessage(),
+                        issue.getSource()));
+            }
+        }
+        LOG.warn("validation report saved in file [" + file.getAbsolutePath()
+                + "]");
+    }
+    /**
+     * Register issue.
+     * @param row spreadsheet row number, one based.
+     * @param key translation key.
+     * @param lang language.
+     * @param type issue type.
+     * @param message details.
+     */
+    private void report(final int row, final String key, final String lang,
+            final IssueType type, final String message) {
+        Issue issue = new Issue(source, row, key, lang, type, message);
+        if (mode == Mode.FAIL_FAST) {
+            throw new ValidationException(issue);
+        }
+        synchronized (issues) {
+            issues.add(issue);
+            counters.merge(type, 1, Integer::sum);
+        }
+    }
+    /**
+     * Get placeholders of the value.
+     * @param value value.
+     * @return bit mask of {N} placeholder indexes, indexes over 63 share
+     * the last bit.
+     */
+    static long placeholders(final String value) {
+        if (value == null) {
+            return 0;
+        }
+        long mask = 0;
+        int idx = value.indexOf('{');
+        while (idx >= 0) {
+            int i = idx + 1;
+            int num = 0;
+            while (i < value.length() && i - idx <= 3
+                    && value.charAt(i) >= '0' && value.charAt(i) <= '9') {
+                num = num * 10 + (value.charAt(i) - '0');
+                i++;
+            }
+            if (i > idx + 1 && i < value.length() && value.charAt(i) == '}') {
+                mask |= 1L << Math.min(num, Long.SIZE - 1);
+            }
+            idx = value.indexOf('{', idx + 1);
+        }
+        return mask;
+    }
+    /**
+     * Describe placeholders mask.
+     * @param mask placeholders mask.
+     * @return placeholders list.
+     */
+    private static String describe(final long mask) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < Long.SIZE; i++) {
+            if ((mask & (1L << i)) != 0) {
+                sb.append(sb.length() > 1 ? ", " : "").append('{').append(i)
+                        .append('}');
+            }
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Work folder next to the project 'src' folder. Baseline, change sets,
+ * journals and reports belong to the project but aren't metadata, so they
+ * are kept outside 'src' and don't depend on the working directory.
+ * @author ss
+ */
+public final class WorkFolder {
+    /** Work folder name. */
+    public static final String NAME = ".fmt";
+    /**
+     * Private constructor.
+     */
+    private WorkFolder() {
+    }
+    /**
+     * Get work folder.
+     * @param projectFolder project 'src' folder.
+     * @return work folder, may not exist.
+     */
+    public static File of(final File projectFolder) {
+        File src = projectFolder.getAbsoluteFile();
+        File parent = src.getParentFile();
+        return new File(parent == null ? src : parent, NAME);
+    }
+    /**
+     * Get file in the work folder, the folder is created if it's missing.
+     * @param projectFolder project 'src' folder.
+     * @param name file name.
+     * @return file.
+     * @throws IOException folder isn't created.
+     */
+    public static File file(final File projectFolder, final String name)
+            throws IOException {
+        File dir = of(projectFolder);
+        Files.createDirectories(dir.toPath());
+        return new File(dir, name);
+    }
+    /**
+     * Get file given by a command argument, or the default file in the
+     * work folder.
+     * @param projectFolder project 'src' folder.
+     * @param path argument value, null for the default file.
+     * @param name default file name.
+     * @return file.
+     * @throws IOException work folder isn't created.
+     */
+    public static File file(final File projectFolder, final String path,
+            final String name) throws IOException {
+        return path == null ? file(projectFolder, name) : new File(path);
+    }
+    /**
+     * Describe default file location for command help.
+     * @param name file name.
+     * @return location relative to the project 'src' folder.
+     */
+    public static String describe(final String name) {
+        return "<project-src>/../" + NAME + "/" + name;
+    }
+}
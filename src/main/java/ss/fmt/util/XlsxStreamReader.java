@@ -0,0 +1,296 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.parsers.SAXParserFactory;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+/**
+ * Streaming XLSX reader.
+ * <p>
+ * Rows are parsed with SAX and passed to the handler one by one, the
+ * workbook is never loaded into memory. Data rows are padded or truncated
+ * to the width of the first (header) row. Several sheets of one workbook
+ * can be read in parallel through a {@link Session}.
+ * </p>
+ * @author ss
+ */
+public class XlsxStreamReader {
+    /** Progress, counts rows and sheet bytes. */
+    private final Progress progress;
+    /**
+     * Constructor.
+     */
+    public XlsxStreamReader() {
+        this(Progress.disabled());
+    }
+    /**
+     * Constructor.
+     * @param progress progress.
+     */
+    public XlsxStreamReader(final Progress progress) {
+        this.progress = progress;
+    }
+    /**
+     * Row handler.
+     */
+    public interface RowHandler {
+        /**
+         * Handle row.
+         * @param rowNum row number, zero based.
+         * @param cells cell values, never null.
+         * @throws Exception error.
+         */
+        void row(int rowNum, List<String> cells) throws Exception;
+    }
+    /**
+     * Open workbook for reading of several sheets.
+     * @param file xlsx file.
+     * @return session, must be closed.
+     * @throws Exception error.
+     */
+    public Session open(final File file) throws Exception {
+        return new Session(OPCPackage.open(file, PackageAccess.READ));
+    }
+    /**
+     * Open workbook from stream, the workbook is loaded into memory.
+     * @param in xlsx stream, read to the end and closed.
+     * @return session, must be closed.
+     * @throws Exception error.
+     */
+    public Session open(final InputStream in) throws Exception {
+        return new Session(OPCPackage.open(progress.track(in)));
+    }
+    /**
+     * Open workbook. Shared strings and styles are parsed once and shared
+     * by sheet readers, sheets can be read from different threads.
+     */
+    public class Session implements AutoCloseable {
+        /** Package. */
+        private final OPCPackage pkg;
+        /** Shared strings table. */
+        private final ReadOnlySharedStringsTable strings;
+        /** Styles table. */
+        private final StylesTable styles;
+        /** Not read sheets by name, in workbook order. */
+        private final Map<String, InputStream> sheets = new LinkedHashMap<>();
+        /**
+         * Constructor.
+         * @param pkg opened package.
+         * @throws Exception error.
+         */
+        Session(final OPCPackage pkg) throws Exception {
+            this.pkg = pkg;
+            try {
+                XSSFReader reader = new XSSFReader(pkg);
+                strings = new ReadOnlySharedStringsTable(pkg);
+                styles = reader.getStylesTable();
+                XSSFReader.SheetIterator it =
+                        (XSSFReader.SheetIterator) reader.getSheetsData();
+                while (it.hasNext()) {
+                    InputStream is = it.next();
+                    sheets.put(it.getSheetName(), is);
+                }
+            } catch (Exception e) {
+                close();
+                throw e;
+            }
+        }
+        /**
+         * @return sheet names in workbook order.
+         */
+        public synchronized List<String> getSheetNames() {
+            return new ArrayList<>(sheets.keySet());
+        }
+        /**
+         * Read sheet, every sheet can be read once.
+         * @param name sheet name.
+         * @param handler row handler.
+         * @throws Exception error.
+         */
+        public void read(final String name, final RowHandler handler)
+                throws Exception {
+            InputStream is;
+            synchronized (this) {
+                is = sheets.remove(name);
+            }
+            if (is == null) {
+                throw new IllegalArgumentException("sheet [" + name
+                        + "] not found or already read");
+            }
+            try (InputStream sheet = progress.track(is)) {
+                readSheet(sheet, styles, strings, handler);
+            }
+        }
+        @Override
+        public synchronized void close() throws IOException {
+            for (InputStream is : sheets.values()) {
+                is.close();
+            }
+            sheets.clear();
+            pkg.revert();
+        }
+    }
+    /**
+     * Read first sheet of the workbook.
+     * @param file xlsx file.
+     * @param handler row handler.
+     * @throws Exception error.
+     */
+    public void read(final File file, final RowHandler handler)
+            throws Exception {
+        OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings =
+                    new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (sheets.hasNext()) {
+                try (InputStream sheet = progress.track(sheets.next())) {
+                    readSheet(sheet, styles, strings, handler);
+                }
+            }
+        } finally {
+            pkg.revert();
+        }
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Parse sheet XML.
+     * @param sheet sheet input stream.
+     * @param styles styles table.
+     * @param strings shared strings table.
+     * @param handler row handler.
+     * @throws Exception error.
+     */
+    private void readSheet(final InputStream sheet, final StylesTable styles,
+            final ReadOnlySharedStringsTable strings,
+            final RowHandler handler) throws Exception {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        XMLReader xmlReader = factory.newSAXParser().getXMLReader();
+        xmlReader.setContentHandler(new XSSFSheetXMLHandler(styles, strings,
+                new RowCollector(handler, progress), new DataFormatter(),
+                false));
+        try {
+            xmlReader.parse(new InputSource(sheet));
+        } catch (HandlerException e) {
+            throw e.error;
+        }
+    }
+    /**
+     * Row handler error, thrown through SAX parser.
+     */
+    private static class HandlerException extends RuntimeException {
+        /** Original error. */
+        private final Exception error;
+        /**
+         * Constructor.
+         * @param cause original error.
+         */
+        HandlerException(final Exception cause) {
+            super(cause);
+            this.error = cause;
+        }
+    }
+    /**
+     * Collects row cells.
+     */
+    private static class RowCollector implements SheetContentsHandler {
+        /** Row handler. */
+        private final RowHandler handler;
+        /** Progress. */
+        private final Progress progress;
+        /** Current row cells. */
+        private List<String> cells;
+        /** Row width, defined by first row. */
+        private int width = -1;
+        /**
+         * Constructor.
+         * @param handler row handler.
+         * @param progress progress.
+         */
+        RowCollector(final RowHandler handler, final Progress progress) {
+            this.handler = handler;
+            this.progress = progress;
+        }
+        @Override
+        public void startRow(final int rowNum) {
+            cells = new ArrayList<>(width < 0 ? 16 : width);
+        }
+        @Override
+        public void endRow(final int rowNum) {
+            if (width < 0) {
+                width = cells.size();
+            }
+            while (cells.size() < width) {
+                cells.add("");
+            }
+            List<String> row = cells.size() > width
+                    ? cells.subList(0, width) : cells;
+            try {
+                handler.row(rowNum, row);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new HandlerException(e);
+            }
+            progress.increment();
+        }
+        @Override
+        public void cell(final String cellReference,
+                final String formattedValue, final XSSFComment comment) {
+            int col = cellReference == null ? cells.size()
+                    : new CellReference(cellReference).getCol();
+            while (cells.size() < col) {
+                cells.add("");
+            }
+            cells.add(formattedValue == null ? "" : formattedValue);
+        }
+        @Override
+        public void headerFooter(final String text, final boolean isHeader,
+                final String tagName) {
+        }
+    }
+}
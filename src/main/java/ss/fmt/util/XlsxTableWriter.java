@@ -0,0 +1,168 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * Compact streaming XLSX table writer.
+ * <p>
+ * Rows are flushed to disk as they are written, repeated values are stored
+ * once in the shared strings table, the cell style and column widths are
+ * defined once per column. The zip compression level of the resulting file
+ * can be chosen. The {@link RowHash} column found in the first row is
+ * hidden. Not thread safe.
+ * </p>
+ * @author ss
+ */
+public class XlsxTableWriter implements AutoCloseable {
+    /** Rows kept in memory. */
+    private static final int ROW_WINDOW = 100;
+    /** Column width. */
+    private static final int COLUMN_WIDTH = 10000;
+    /** Target stream. */
+    private final OutputStream out;
+    /** Zip compression level. */
+    private final int compressionLevel;
+    /** Workbook. */
+    private final SXSSFWorkbook wb;
+    /** Sheet. */
+    private final Sheet sheet;
+    /** Cell style. */
+    private final CellStyle style;
+    /** Configured columns count. */
+    private int columns = 0;
+    /** Written rows. */
+    private int rows = 0;
+    /**
+     * Constructor.
+     * @param out target stream, not closed by the writer.
+     * @param sheetName sheet name.
+     * @param compressionLevel zip compression level, 0-9, or
+     * {@link Deflater#DEFAULT_COMPRESSION}.
+     */
+    public XlsxTableWriter(final OutputStream out, final String sheetName,
+            final int compressionLevel) {
+        this.out = out;
+        this.compressionLevel = compressionLevel;
+        this.wb = new SXSSFWorkbook(new XSSFWorkbook(), ROW_WINDOW, true, true);
+        this.sheet = wb.createSheet(sheetName);
+        this.style = wb.createCellStyle();
+        this.style.setWrapText(true);
+    }
+    /**
+     * Write row.
+     * @param dataRow row values.
+     */
+    public void writeRow(final List<String> dataRow) {
+        while (columns < dataRow.size()) {
+            sheet.setColumnWidth(columns, COLUMN_WIDTH);
+            sheet.setDefaultColumnStyle(columns, style);
+            columns++;
+        }
+        Row row = sheet.createRow(rows++);
+        for (int i = 0; i < dataRow.size(); i++) {
+            Cell cell = row.createCell(i);
+            cell.setCellStyle(style);
+            cell.setCellValue(dataRow.get(i));
+            if (rows == 1 && RowHash.HEADER.equals(dataRow.get(i))) {
+                sheet.setColumnHidden(i, true);
+            }
+        }
+    }
+    /**
+     * @return written rows.
+     */
+    public int getRows() {
+        return rows;
+    }
+    /**
+     * Write workbook to target stream.
+     * @throws IOException error.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (compressionLevel == Deflater.DEFAULT_COMPRESSION) {
+                wb.write(out);
+            } else {
+                File tmp = File.createTempFile("fmt-", ".xlsx");
+                try {
+                    try (OutputStream os = new FileOutputStream(tmp)) {
+                        wb.write(os);
+                    }
+                    try (InputStream is = new FileInputStream(tmp)) {
+                        recompress(is, out, compressionLevel);
+                    }
+                } finally {
+                    Files.deleteIfExists(tmp.toPath());
+                }
+            }
+            out.flush();
+        } finally {
+            wb.dispose();
+            wb.close();
+        }
+    }
+    /**
+     * Copy zip entries with another compression level.
+     * @param in source zip.
+     * @param out target zip, not closed.
+     * @param level compression level.
+     * @throws IOException error.
+     */
+    public static void recompress(final InputStream in, final OutputStream out,
+            final int level) throws IOException {
+        ZipInputStream zis = new ZipInputStream(in);
+        ZipOutputStream zos = new ZipOutputStream(out);
+        zos.setLevel(level);
+        byte[] buf = new byte[8192];
+        for (ZipEntry e = zis.getNextEntry(); e != null;
+                e = zis.getNextEntry()) {
+            zos.putNextEntry(new ZipEntry(e.getName()));
+            for (int n = zis.read(buf); n > 0; n = zis.read(buf)) {
+                zos.write(buf, 0, n);
+            }
+            zos.closeEntry();
+        }
+        zos.finish();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.api;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ss.fmt.util.TranslationValidator;
+import ss.fmt.util.XlsxTableWriter;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Failures of the pipelined import.
+ * @author ss
+ */
+public class ImportPipelineTest {
+    /** Rows in the import file, more than the pipeline queue holds. */
+    private static final int ROWS = 3000;
+    /** Custom labels file. */
+    private static final String LABELS = String.join("\n",
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+            "<CustomLabels xmlns=\"http://soap.sforce.com/2006/04/metadata\">",
+            "    <labels>",
+            "        <fullName>Greeting</fullName>",
+            "        <language>en_US</language>",
+            "        <protected>false</protected>",
+            "        <shortDescription>Greeting</shortDescription>",
+            "        <value>Hello</value>",
+            "    </labels>",
+            "</CustomLabels>",
+            "");
+    /** German translations file. */
+    private static final String TRANSLATION = String.join("\n",
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+            "<Translations xmlns=\"http://soap.sforce.com/2006/04/metadata\">",
+            "    <customLabels>",
+            "        <label>Hallo</label>",
+            "        <name>Greeting</name>",
+            "    </customLabels>",
+            "</Translations>",
+            "");
+    /** Project folder. */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    @Test(timeout = 60000)
+    public void failFastValidationReturns() throws Exception {
+        File src = folder.newFolder("src");
+        File labels = file(src, "labels", "CustomLabels.labels", LABELS);
+        File de = file(src, "translations", "de.translation", TRANSLATION);
+        byte[] labelsBefore = Files.readAllBytes(labels.toPath());
+        byte[] deBefore = Files.readAllBytes(de.toPath());
+        File xlsx = folder.newFile("import.xlsx");
+        try (OutputStream out = new FileOutputStream(xlsx);
+                XlsxTableWriter writer = new XlsxTableWriter(out, "labels",
+                        Deflater.DEFAULT_COMPRESSION)) {
+            writer.writeRow(Arrays.asList("Key", "Description", "de"));
+            // every key is unknown, the first row fails the import
+            for (int i = 0; i < ROWS; i++) {
+                writer.writeRow(Arrays.asList("Unknown_" + i, "", "Wert"));
+            }
+        }
+        ImportOptions options = new ImportOptions();
+        options.setProjectSrc(src.toPath());
+        options.setPipeline(true);
+        options.setValidation(TranslationValidator.Mode.FAIL_FAST);
+        try {
+            new LabelsImporter().importFrom(options, xlsx.toPath());
+            fail("validation error expected");
+        } catch (TranslationValidator.ValidationException e) {
+            // expected
+        }
+        assertArrayEquals(labelsBefore, Files.readAllBytes(labels.toPath()));
+        assertArrayEquals(deBefore, Files.readAllBytes(de.toPath()));
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Create file.
+     * @param root project folder.
+     * @param dir folder name.
+     * @param name file name.
+     * @param content content.
+     * @return file.
+     * @throws Exception error.
+     */
+    private static File file(final File root, final String dir,
+            final String name, final String content) throws Exception {
+        File d = new File(root, dir);
+        d.mkdirs();
+        File f = new File(d, name);
+        Files.write(f.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return f;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ss.fmt.util.XlsxStreamReader;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Parallel export produces the rows of the serial one.
+ * @author ss
+ */
+public class LabelsExporterTest {
+    /** Labels, several parallel row chunks. */
+    private static final int LABELS = 3000;
+    /** Metadata namespace. */
+    private static final String NS =
+            "xmlns=\"http://soap.sforce.com/2006/04/metadata\"";
+    /** Project folder. */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    @Test
+    public void parallelCompactKeepsRowOrder() throws Exception {
+        File src = project();
+        List<List<String>> serial = export(src, false, true, null);
+        assertEquals(LABELS + 1, serial.size());
+        assertEquals("Label_00000", serial.get(1).get(0));
+        assertEquals("Label_02999", serial.get(LABELS).get(0));
+        assertEquals(serial, export(src, true, true, null));
+    }
+    @Test
+    public void parallelStandardKeepsRowOrder() throws Exception {
+        File src = project();
+        assertEquals(export(src, false, false, null),
+                export(src, true, false, null));
+    }
+    @Test
+    public void parallelFilteredKeepsRowOrder() throws Exception {
+        File src = project();
+        // filtered labels leave some chunks short or empty
+        List<List<String>> serial = export(src, false, true, "Rare");
+        assertEquals(LABELS / 700 + 1, serial.size() - 1);
+        assertEquals(serial, export(src, true, true, "Rare"));
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Create project with custom labels, german and french translations.
+     * @return project 'src' folder.
+     * @throws Exception error.
+     */
+    private File project() throws Exception {
+        File src = folder.newFolder("src");
+        StringBuilder labels = new StringBuilder(xml("CustomLabels"));
+        StringBuilder de = new StringBuilder(xml("Translations"));
+        StringBuilder fr = new StringBuilder(xml("Translations"));
+        for (int i = 0; i < LABELS; i++) {
+            String name = String.format("Label_%05d", i);
+            labels.append("    <labels>\n")
+                    .append("        <fullName>").append(name)
+                    .append("</fullName>\n")
+                    .append("        <categories>")
+                    .append(i % 700 == 0 ? "Rare" : "Common")
+                    .append("</categories>\n")
+                    .append("        <language>en_US</language>\n")
+                    .append("        <protected>false</protected>\n")
+                    .append("        <shortDescription>Label ").append(i)
+                    .append("</shortDescription>\n")
+                    .append("        <value>Value ").append(i)
+                    .append(" &amp; more</value>\n")
+                    .append("    </labels>\n");
+            translation(de, name, "Wert " + i);
+            if (i % 3 == 0) {
+                translation(fr, name, "Valeur " + i);
+            }
+        }
+        write(src, "labels", "CustomLabels.labels",
+                labels.append("</CustomLabels>\n"));
+        write(src, "translations", "de.translation",
+                de.append("</Translations>\n"));
+        write(src, "translations", "fr.translation",
+                fr.append("</Translations>\n"));
+        return src;
+    }
+    /**
+     * Export workbook and read it back.
+     * @param src project 'src' folder.
+     * @param parallel parallel export.
+     * @param compact compact output.
+     * @param category category filter, can be null.
+     * @return workbook rows.
+     * @throws Exception error.
+     */
+    private static List<List<String>> export(final File src,
+            final boolean parallel, final boolean compact,
+            final String category) throws Exception {
+        ExportOptions options = new ExportOptions();
+        options.setProjectSrc(src.toPath());
+        options.setLanguages(Arrays.asList("de", "fr"));
+        options.setParallel(parallel);
+        options.setCompact(compact);
+        options.setCategory(category);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new LabelsExporter().export(options, out);
+        List<List<String>> rows = new ArrayList<>();
+        try (XlsxStreamReader.Session session = new XlsxStreamReader().open(
+                new ByteArrayInputStream(out.toByteArray()))) {
+            session.read(session.getSheetNames().get(0),
+                    (num, cells) -> rows.add(cells));
+        }
+        return rows;
+    }
+    /**
+     * @param root root element.
+     * @return metadata file start.
+     */
+    private static String xml(final String root) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<" + root + " "
+                + NS + ">\n";
+    }
+    /**
+     * Append translation.
+     * @param sb translations file.
+     * @param name label name.
+     * @param label translated value.
+     */
+    private static void translation(final StringBuilder sb,
+            final String name, final String label) {
+        sb.append("    <customLabels>\n")
+                .append("        <label>").append(label)
+                .append("</label>\n")
+                .append("        <name>").append(name).append("</name>\n")
+                .append("    </customLabels>\n");
+    }
+    /**
+     * Write metadata file.
+     * @param src project 'src' folder.
+     * @param dir folder name.
+     * @param name file name.
+     * @param content content.
+     * @throws Exception error.
+     */
+    private static void write(final File src, final String dir,
+            final String name, final CharSequence content) throws Exception {
+        File d = new File(src, dir);
+        d.mkdirs();
+        Files.write(new File(d, name).toPath(),
+                content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
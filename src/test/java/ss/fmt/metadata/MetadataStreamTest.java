@@ -0,0 +1,233 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.metadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Round trip of sample metadata files through {@link MetadataStream}.
+ * @author ss
+ */
+public class MetadataStreamTest {
+    /** Sample translations file. */
+    private static final String TRANSLATION = "de.translation";
+    /** Sample object translations file. */
+    private static final String OBJECT_TRANSLATION =
+            "Account-de.objectTranslation";
+    /** Types of translations files. */
+    private static final List<MetadataDescriptor> TRANSLATION_TYPES =
+            Arrays.asList(MetadataTypes.CUSTOM_LABEL,
+                    MetadataTypes.CUSTOM_APPLICATION);
+    /** Types of object translations files. */
+    private static final List<MetadataDescriptor> OBJECT_TYPES =
+            Arrays.asList(MetadataTypes.CUSTOM_FIELD,
+                    MetadataTypes.PICKLIST_VALUE, MetadataTypes.RECORD_TYPE);
+    @Test
+    public void unchangedTranslationIsKept() throws Exception {
+        String source = sample(TRANSLATION);
+        Result r = rewrite(source, TRANSLATION_TYPES, null,
+                Collections.emptyMap());
+        // empty elements are the only difference, see class doc
+        assertEquals(source.replace("<label/>", "<label></label>"), r.xml);
+        assertEquals(5, r.stream.getRecords());
+        assertEquals(0, r.stream.getReplaced());
+        assertEquals(0, r.stream.getMissing());
+    }
+    @Test
+    public void unchangedObjectTranslationIsKept() throws Exception {
+        String source = sample(OBJECT_TRANSLATION);
+        Result r = rewrite(source, OBJECT_TYPES, "Account",
+                Collections.emptyMap());
+        assertEquals(source, r.xml);
+        assertEquals(5, r.stream.getRecords());
+    }
+    @Test
+    public void readsDecodedValues() throws Exception {
+        Map<String, String> values = read(sample(TRANSLATION),
+                TRANSLATION_TYPES, null);
+        assertEquals("Sales & Service", values.get("CustomApplication:Sales"));
+        assertEquals("Hello <b>world</b>",
+                values.get("CustomLabel:Greeting"));
+        assertEquals("Don't \"quote\"", values.get("CustomLabel:Quoted"));
+        assertEquals("", values.get("CustomLabel:Empty"));
+        assertEquals("", values.get("CustomLabel:NoLabel"));
+    }
+    @Test
+    public void escapesReplacedValues() throws Exception {
+        String value = "a & b <c> \"d\" 'e'";
+        Map<String, String> values = new HashMap<>();
+        values.put("CustomLabel:Greeting", value);
+        Result r = rewrite(sample(TRANSLATION), TRANSLATION_TYPES, null,
+                values);
+        assertTrue(r.xml.contains("<label>a &amp; b &lt;c&gt; &quot;d&quot; "
+                + "&apos;e&apos;</label>\n        <name>Greeting</name>"));
+        assertEquals(value, read(r.xml, TRANSLATION_TYPES, null)
+                .get("CustomLabel:Greeting"));
+        assertEquals(Arrays.asList("Greeting"), r.changed);
+    }
+    @Test
+    public void replacesEmptyElement() throws Exception {
+        Map<String, String> values = new HashMap<>();
+        values.put("CustomLabel:Empty", "Leer");
+        Result r = rewrite(sample(TRANSLATION), TRANSLATION_TYPES, null,
+                values);
+        assertTrue(r.xml.contains(
+                "<label>Leer</label>\n        <name>Empty</name>"));
+        assertEquals(1, r.stream.getReplaced());
+    }
+    @Test
+    public void countsMissingValueElement() throws Exception {
+        String source = sample(TRANSLATION);
+        Map<String, String> values = new HashMap<>();
+        values.put("CustomLabel:NoLabel", "Kein Wert");
+        Result r = rewrite(source, TRANSLATION_TYPES, null, values);
+        assertEquals(source.replace("<label/>", "<label></label>"), r.xml);
+        assertEquals(0, r.stream.getReplaced());
+        assertEquals(1, r.stream.getMissing());
+        assertTrue(r.changed.isEmpty());
+    }
+    @Test
+    public void buildsNestedKeys() throws Exception {
+        Map<String, String> values = read(sample(OBJECT_TRANSLATION),
+                OBJECT_TYPES, "Account");
+        assertEquals(Arrays.asList("CustomField:Account.Status__c",
+                "PicklistValue:Account.Status__c.Open",
+                "PicklistValue:Account.Status__c.Closed",
+                "CustomField:Account.Region__c",
+                "RecordType:Account.Partner"),
+                new ArrayList<>(values.keySet()));
+        assertEquals("Offen",
+                values.get("PicklistValue:Account.Status__c.Open"));
+        assertEquals("", values.get("PicklistValue:Account.Status__c.Closed"));
+    }
+    @Test
+    public void replacesNestedValues() throws Exception {
+        Map<String, String> values = new HashMap<>();
+        values.put("PicklistValue:Account.Status__c.Closed", "Geschlossen");
+        values.put("CustomField:Account.Region__c", "Region");
+        values.put("RecordType:Account.Partner", "Partner");
+        Result r = rewrite(sample(OBJECT_TRANSLATION), OBJECT_TYPES,
+                "Account", values);
+        assertTrue(r.xml.contains("<masterLabel>Closed</masterLabel>\n"
+                + "            <translation>Geschlossen</translation>"));
+        assertTrue(r.xml.contains("<label>Region</label>\n"
+                + "        <name>Region__c</name>"));
+        assertTrue(r.xml.contains("<help><!-- Current status --></help>"));
+        assertEquals(2, r.stream.getReplaced());
+        assertEquals(Arrays.asList("Account.Status__c.Closed",
+                "Account.Region__c"), r.changed);
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Rewrite result.
+     */
+    private static class Result {
+        /** Written document. */
+        private String xml;
+        /** Stream with counters. */
+        private MetadataStream stream;
+        /** Keys reported as replaced. */
+        private final List<String> changed = new ArrayList<>();
+    }
+    /**
+     * Rewrite document.
+     * @param xml document.
+     * @param types types.
+     * @param scope object name, can be null.
+     * @param values new values by qualified key.
+     * @return result.
+     * @throws Exception error.
+     */
+    private static Result rewrite(final String xml,
+            final List<MetadataDescriptor> types, final String scope,
+            final Map<String, String> values) throws Exception {
+        Result r = new Result();
+        r.stream = new MetadataStream(types, scope);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        r.stream.rewrite(stream(xml), out,
+                (type, key, value) -> values.get(type.qualify(key)),
+                (type, key, value, next) -> {
+                    r.changed.add(key);
+                });
+        r.xml = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        return r;
+    }
+    /**
+     * Read document.
+     * @param xml document.
+     * @param types types.
+     * @param scope object name, can be null.
+     * @return values by qualified key in document order.
+     * @throws Exception error.
+     */
+    private static Map<String, String> read(final String xml,
+            final List<MetadataDescriptor> types, final String scope)
+            throws Exception {
+        Map<String, String> values = new LinkedHashMap<>();
+        new MetadataStream(types, scope).read(stream(xml),
+                (type, key, value) -> {
+                    values.put(type.qualify(key), value);
+                    return null;
+                });
+        return values;
+    }
+    /**
+     * @param xml document.
+     * @return document stream.
+     */
+    private static InputStream stream(final String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+    /**
+     * Load sample file.
+     * @param name resource name.
+     * @return file content.
+     * @throws Exception error.
+     */
+    private static String sample(final String name) throws Exception {
+        try (InputStream is = MetadataStreamTest.class
+                .getResourceAsStream(name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = is.read(buf)) > 0) {
+                out.write(buf, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,484 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.scale;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import org.apache.log4j.Logger;
+import ss.fmt.api.ExportOptions;
+import ss.fmt.api.ImportOptions;
+import ss.fmt.api.LabelsExporter;
+import ss.fmt.api.LabelsImporter;
+import ss.fmt.constants.ProjectFile;
+import ss.fmt.constants.ProjectFolder;
+import ss.fmt.util.ChangeSet;
+import ss.fmt.util.Csv;
+import ss.fmt.util.RowHash;
+import ss.fmt.util.XlsxStreamReader;
+import ss.fmt.util.XlsxTableWriter;
+
+/**
+ * End-to-end scale check.
+ * <p>
+ * For every size a project is generated and exported. The export is
+ * imported back twice without the row hash column, so every row is
+ * applied: first unchanged, then with every {@value #EDITED}th value of
+ * the last language edited. Wall time and peak heap of every phase are
+ * checked against budgets. The unchanged import must leave every metadata
+ * file byte for byte as generated with an empty change set. The edited
+ * import must change exactly the edited values: the change set holds only
+ * the edited keys, the edited file has the new values and every other
+ * metadata file is byte for byte unchanged. Results are appended to a CSV
+ * trend file, the process exits with 1 if any check failed. Lives in the
+ * test tree and is run only by the 'scale' maven profile, arguments are
+ * 'name=value' pairs:
+ * </p>
+ * <ul>
+ * <li>sizes - labels per project, default 10000,100000,500000</li>
+ * <li>languages - master language first, default en_US,de,fr</li>
+ * <li>work-dir - generated projects, default target/scale</li>
+ * <li>trend - trend file, default scale-trend.csv</li>
+ * <li>max-millis-per-1k - time budget per phase and 1000 labels</li>
+ * <li>max-heap-mb - peak heap budget per phase</li>
+ * <li>max-rss-mb - peak resident set budget, 0 to skip, Linux only</li>
+ * <li>compact, parallel, pipeline - export and import options</li>
+ * </ul>
+ * @author ss
+ */
+public final class ScaleCheck {
+    /** Logger. */
+    private static final Logger LOG = Logger.getLogger(ScaleCheck.class);
+    /** Bytes in MB. */
+    private static final long MB = 1024 * 1024;
+    /** Edited row period. */
+    private static final int EDITED = 100;
+    /** Suffix of edited values. */
+    private static final String EDIT = " (edited)";
+    /** Default arguments. */
+    private static final String[][] DEFAULTS = {
+        {"sizes", "10000,100000,500000"},
+        {"languages", "en_US,de,fr"},
+        {"work-dir", "target/scale"},
+        {"trend", "scale-trend.csv"},
+        {"max-millis-per-1k", "1000"},
+        {"max-heap-mb", "3072"},
+        {"max-rss-mb", "0"},
+        {"compact", "true"},
+        {"parallel", "false"},
+        {"pipeline", "true"}
+    };
+    /** Arguments. */
+    private final Map<String, String> args = new HashMap<>();
+    /** Failed checks. */
+    private final List<String> failures = new ArrayList<>();
+    /**
+     * Constructor.
+     * @param argv 'name=value' arguments.
+     */
+    private ScaleCheck(final String[] argv) {
+        for (String[] d : DEFAULTS) {
+            args.put(d[0], d[1]);
+        }
+        for (String a : argv) {
+            int i = a.indexOf('=');
+            String name = i < 0 ? a : a.substring(0, i);
+            if (!args.containsKey(name)) {
+                throw new IllegalArgumentException("unknown argument ["
+                        + name + "]");
+            }
+            args.put(name, i < 0 ? "true" : a.substring(i + 1));
+        }
+    }
+    /**
+     * @param argv 'name=value' arguments.
+     */
+    public static void main(final String[] argv) {
+        int status;
+        try {
+            ScaleCheck check = new ScaleCheck(argv);
+            check.run();
+            status = check.failures.isEmpty() ? 0 : 1;
+            for (String f : check.failures) {
+                LOG.fatal("scale check failed: " + f);
+            }
+        } catch (Exception e) {
+            LOG.fatal("scale check error", e);
+            status = 2;
+        }
+        System.exit(status);
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Run all sizes.
+     * @throws Exception error.
+     */
+    private void run() throws Exception {
+        List<String> languages = new ArrayList<>();
+        for (String lang : args.get("languages").split(",")) {
+            languages.add(lang.trim());
+        }
+        File workDir = new File(args.get("work-dir"));
+        for (String s : args.get("sizes").split(",")) {
+            int size = Integer.parseInt(s.trim());
+            File dir = new File(workDir, String.valueOf(size));
+            delete(dir.toPath());
+            cycle(dir, size, languages);
+            delete(dir.toPath());
+        }
+    }
+    /**
+     * Export one generated project and import it back.
+     * @param dir working directory.
+     * @param size labels count.
+     * @param languages languages.
+     * @throws Exception error.
+     */
+    private void cycle(final File dir, final int size,
+            final List<String> languages) throws Exception {
+        File projectFolder = new File(dir, "src");
+        LOG.info("generate project, labels [" + size + "]");
+        ScaleProject project = new ScaleProject();
+        project.generate(projectFolder, size, languages);
+        File exportFile = new File(dir, "export.xlsx");
+        ExportOptions export = new ExportOptions();
+        export.setProjectSrc(projectFolder.toPath());
+        export.setLanguages(languages);
+        export.setCompact(Boolean.parseBoolean(args.get("compact")));
+        export.setParallel(Boolean.parseBoolean(args.get("parallel")));
+        long[] exportStats = measure(() -> {
+            new LabelsExporter().export(export, exportFile.toPath());
+            return null;
+        });
+        check(size, languages, "export", exportStats, 0);
+        String lang = languages.get(languages.size() - 1);
+        importBack(dir, size, languages, project, exportFile, lang, false);
+        importBack(dir, size, languages, project, exportFile, lang, true);
+    }
+    /**
+     * Import the export back and check that only edited values changed.
+     * @param dir working directory.
+     * @param size labels count.
+     * @param languages languages.
+     * @param project project generator.
+     * @param exportFile exported workbook.
+     * @param lang edited language.
+     * @param edit edit values, otherwise nothing may change.
+     * @throws Exception error.
+     */
+    private void importBack(final File dir, final int size,
+            final List<String> languages, final ScaleProject project,
+            final File exportFile, final String lang, final boolean edit)
+            throws Exception {
+        File projectFolder = new File(dir, "src");
+        Map<String, String> before = digests(projectFolder);
+        File importFile = new File(dir, "import.xlsx");
+        Map<String, String> edited = prepareImport(exportFile, importFile,
+                lang, edit);
+        ImportOptions options = new ImportOptions();
+        options.setProjectSrc(projectFolder.toPath());
+        options.setPipeline(Boolean.parseBoolean(args.get("pipeline")));
+        ChangeSet[] changes = new ChangeSet[1];
+        long[] importStats = measure(() -> {
+            changes[0] = new LabelsImporter().importFrom(options,
+                    importFile.toPath());
+            return null;
+        });
+        String editedPath = ProjectFolder.TRANSLATIONS + "/"
+                + String.format(ProjectFile.TMPL_TRANSLATION, lang);
+        Map<String, String> after = digests(projectFolder);
+        int diffs = 0;
+        for (String file : new TreeMap<>(before).keySet()) {
+            boolean changed = !before.get(file).equals(after.get(file));
+            boolean expected = !edited.isEmpty() && file.replace(
+                    File.separatorChar, '/').equals(editedPath);
+            if (changed != expected) {
+                LOG.error("unexpected round trip result, file [" + file
+                        + "] " + (changed ? "changed" : "not changed"));
+                diffs++;
+            }
+        }
+        if (!changes[0].getFiles().equals(edited.isEmpty()
+                ? new TreeSet<>() : new TreeSet<>(Arrays.asList(editedPath)))
+                || !changes[0].getKeys(editedPath).equals(
+                        new TreeSet<>(edited.keySet()))) {
+            LOG.error("change set doesn't match edited values, files "
+                    + changes[0].getFiles() + ", edited ["
+                    + edited.size() + "]");
+            diffs++;
+        }
+        Map<String, String> imported = project.translations(projectFolder,
+                lang);
+        for (Map.Entry<String, String> e : edited.entrySet()) {
+            if (!e.getValue().equals(imported.get(e.getKey()))) {
+                LOG.error("edited value isn't imported, key ["
+                        + e.getKey() + "]");
+                diffs++;
+            }
+        }
+        check(size, languages, edit ? "import" : "import-unchanged",
+                importStats, diffs);
+    }
+    /**
+     * Copy exported workbook without the row hash column, so no row is
+     * skipped as unchanged, and edit every {@value #EDITED}th translated
+     * value of the language if requested.
+     * @param exportFile exported workbook.
+     * @param importFile import workbook.
+     * @param lang edited language.
+     * @param edit edit values.
+     * @return edited values by key.
+     * @throws Exception error.
+     */
+    private static Map<String, String> prepareImport(final File exportFile,
+            final File importFile, final String lang, final boolean edit)
+            throws Exception {
+        Map<String, String> edited = new HashMap<>();
+        int[] columns = {-1, -1};
+        try (OutputStream os = new BufferedOutputStream(
+                new FileOutputStream(importFile));
+                XlsxTableWriter writer = new XlsxTableWriter(os, "import",
+                        Deflater.DEFAULT_COMPRESSION)) {
+            new XlsxStreamReader().read(exportFile, (rowNum, cells) -> {
+                List<String> row = new ArrayList<>(cells);
+                if (rowNum == 0) {
+                    columns[0] = row.indexOf(RowHash.HEADER);
+                    columns[1] = row.indexOf(lang);
+                    if (columns[1] < 0) {
+                        throw new IllegalStateException("language [" + lang
+                                + "] isn't exported");
+                    }
+                } else if (edit && rowNum % EDITED == 0
+                        && !row.get(columns[1]).isEmpty()) {
+                    row.set(columns[1], row.get(columns[1]) + EDIT);
+                    edited.put(row.get(0), row.get(columns[1]));
+                }
+                if (columns[0] >= 0) {
+                    row.remove(columns[0]);
+                }
+                writer.writeRow(row);
+            });
+        }
+        LOG.info("import file prepared, edited values [" + edited.size()
+                + "]");
+        return edited;
+    }
+    /**
+     * Measured phase.
+     */
+    private interface Phase {
+        /**
+         * Run phase.
+         * @return ignored.
+         * @throws Exception error.
+         */
+        Object run() throws Exception;
+    }
+    /**
+     * Run phase and measure it.
+     * @param phase phase.
+     * @return wall time ms, peak heap bytes, peak RSS bytes.
+     * @throws Exception error.
+     */
+    private long[] measure(final Phase phase) throws Exception {
+        System.gc();
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+                pools.add(pool);
+            }
+        }
+        long start = System.nanoTime();
+        phase.run();
+        long millis = (System.nanoTime() - start) / 1000000;
+        long heap = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            heap += pool.getPeakUsage().getUsed();
+        }
+        return new long[] {millis, heap, peakRss()};
+    }
+    /**
+     * Check budgets and append trend row.
+     * @param size labels count.
+     * @param languages languages.
+     * @param phase phase name.
+     * @param stats wall time ms, peak heap bytes, peak RSS bytes.
+     * @param diffs round trip differences.
+     * @throws Exception error.
+     */
+    private void check(final int size, final List<String> languages,
+            final String phase, final long[] stats, final int diffs)
+            throws Exception {
+        long maxMillis = Long.parseLong(args.get("max-millis-per-1k"))
+                * size / 1000;
+        long maxHeap = Long.parseLong(args.get("max-heap-mb"));
+        long maxRss = Long.parseLong(args.get("max-rss-mb"));
+        List<String> failed = new ArrayList<>();
+        if (stats[0] > maxMillis) {
+            failed.add("time " + stats[0] + " > " + maxMillis + " ms");
+        }
+        if (stats[1] / MB > maxHeap) {
+            failed.add("heap " + stats[1] / MB + " > " + maxHeap + " MB");
+        }
+        if (maxRss > 0 && stats[2] / MB > maxRss) {
+            failed.add("rss " + stats[2] / MB + " > " + maxRss + " MB");
+        }
+        if (diffs > 0) {
+            failed.add("round trip diffs " + diffs);
+        }
+        String result = failed.isEmpty() ? "ok" : String.join("; ", failed);
+        if (!failed.isEmpty()) {
+            failures.add(phase + " of " + size + " labels: " + result);
+        }
+        long perSecond = stats[0] == 0 ? size : size * 1000L / stats[0];
+        LOG.info(phase + " [" + size + " labels], time [" + stats[0]
+                + " ms], throughput [" + perSecond + " labels/s], peak heap ["
+                + stats[1] / MB + " MB], peak rss [" + (stats[2] < 0 ? "n/a"
+                        : stats[2] / MB + " MB") + "], result [" + result
+                + "]");
+        File trend = new File(args.get("trend"));
+        boolean header = !trend.exists();
+        try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(trend, true), StandardCharsets.UTF_8))) {
+            if (header) {
+                pw.println(Csv.line("date", "java", "size", "languages",
+                        "phase", "options", "millis", "labels_per_sec",
+                        "peak_heap_mb", "peak_rss_mb", "diffs", "result"));
+            }
+            pw.println(Csv.line(
+                    new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss")
+                            .format(new Date()),
+                    System.getProperty("java.version"),
+                    String.valueOf(size), String.valueOf(languages.size()),
+                    phase, options(), String.valueOf(stats[0]),
+                    String.valueOf(perSecond), String.valueOf(stats[1] / MB),
+                    stats[2] < 0 ? "" : String.valueOf(stats[2] / MB),
+                    String.valueOf(diffs), result));
+        }
+    }
+    /**
+     * @return export and import options of the run.
+     */
+    private String options() {
+        StringBuilder sb = new StringBuilder();
+        for (String name : Arrays.asList("compact", "parallel", "pipeline")) {
+            if (Boolean.parseBoolean(args.get(name))) {
+                sb.append(sb.length() == 0 ? "" : " ").append(name);
+            }
+        }
+        return sb.toString();
+    }
+    /**
+     * Digest every file of the project.
+     * @param projectFolder project folder.
+     * @return hex digest by relative path.
+     * @throws Exception error.
+     */
+    private static Map<String, String> digests(final File projectFolder)
+            throws Exception {
+        Map<String, String> digests = new HashMap<>();
+        Path root = projectFolder.toPath();
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.filter(Files::isRegularFile).forEach(files::add);
+        }
+        byte[] buf = new byte[65536];
+        for (Path f : files) {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            try (InputStream is = new FileInputStream(f.toFile())) {
+                for (int n = is.read(buf); n > 0; n = is.read(buf)) {
+                    md.update(buf, 0, n);
+                }
+            }
+            digests.put(root.relativize(f).toString(),
+                    String.format("%064x", new BigInteger(1, md.digest())));
+        }
+        return digests;
+    }
+    /**
+     * @return peak resident set size of the process, bytes, -1 if unknown.
+     */
+    private static long peakRss() {
+        File status = new File("/proc/self/status");
+        if (!status.exists()) {
+            return -1;
+        }
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(
+                new FileInputStream(status), StandardCharsets.US_ASCII))) {
+            for (String line = br.readLine(); line != null;
+                    line = br.readLine()) {
+                if (line.startsWith("VmHWM:")) {
+                    String kb = line.substring(6).replace("kB", "").trim();
+                    return Long.parseLong(kb) * 1024;
+                }
+            }
+        } catch (Exception e) {
+            LOG.warn("peak rss isn't available: " + e.getMessage());
+        }
+        return -1;
+    }
+    /**
+     * Delete directory recursively.
+     * @param dir directory.
+     * @throws Exception error.
+     */
+    private static void delete(final Path dir) throws Exception {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach((p) -> {
+                p.toFile().delete();
+            });
+        }
+    }
+}
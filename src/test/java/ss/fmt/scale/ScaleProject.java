@@ -0,0 +1,216 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.scale;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import ss.fmt.constants.ProjectFile;
+import ss.fmt.constants.ProjectFolder;
+import ss.fmt.jaxb.model.Translations;
+import ss.fmt.util.CustomLabelsUtil;
+
+/**
+ * Generates salesforce projects with custom labels for scale checks.
+ * <p>
+ * Files are written as Metadata API text, formatted and escaped like files
+ * retrieved from an org, not by the import marshaller, so an import
+ * without changes must leave them as they are. Every tenth label of each
+ * translation language is left untranslated, values contain characters
+ * escaped in XML and CSV.
+ * </p>
+ * @author ss
+ */
+class ScaleProject extends CustomLabelsUtil {
+    /** Categories count. */
+    private static final int CATEGORIES = 20;
+    /** Untranslated label period. */
+    private static final int UNTRANSLATED = 10;
+    /** XML declaration. */
+    private static final String DECLARATION =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+    /** Metadata namespace. */
+    private static final String NS =
+            " xmlns=\"http://soap.sforce.com/2006/04/metadata\">";
+    /**
+     * Generate project.
+     * @param projectFolder project 'src' folder, created.
+     * @param size labels count.
+     * @param languages languages, the first one is the master language.
+     * @throws Exception error.
+     */
+    void generate(final File projectFolder, final int size,
+            final List<String> languages) throws Exception {
+        String master = languages.get(0);
+        try (Writer w = writer(new File(projectFolder,
+                ProjectFolder.CUSTOM_LABELS), ProjectFile.CUSTOM_LABELS)) {
+            line(w, 0, DECLARATION);
+            line(w, 0, "<CustomLabels" + NS);
+            for (int i = 0; i < size; i++) {
+                line(w, 1, "<labels>");
+                element(w, "fullName", key(i));
+                element(w, "categories",
+                        String.format("Category_%02d", i % CATEGORIES));
+                element(w, "language", master);
+                element(w, "protected", "false");
+                element(w, "shortDescription", "Scale label " + i);
+                element(w, "value", value(master, i));
+                line(w, 1, "</labels>");
+            }
+            line(w, 0, "</CustomLabels>");
+        }
+        for (int l = 1; l < languages.size(); l++) {
+            String lang = languages.get(l);
+            try (Writer w = writer(new File(projectFolder,
+                    ProjectFolder.TRANSLATIONS),
+                    String.format(ProjectFile.TMPL_TRANSLATION, lang))) {
+                line(w, 0, DECLARATION);
+                line(w, 0, "<Translations" + NS);
+                for (int i = 0; i < size; i++) {
+                    if (i % UNTRANSLATED == l % UNTRANSLATED) {
+                        continue;
+                    }
+                    line(w, 1, "<customLabels>");
+                    element(w, "label", value(lang, i));
+                    element(w, "name", key(i));
+                    line(w, 1, "</customLabels>");
+                }
+                line(w, 0, "</Translations>");
+            }
+        }
+    }
+    /**
+     * Read translations of the language.
+     * @param projectFolder project 'src' folder.
+     * @param lang language.
+     * @return values by key.
+     * @throws Exception error.
+     */
+    Map<String, String> translations(final File projectFolder,
+            final String lang) throws Exception {
+        Translations t = extractTranslations(new File(new File(projectFolder,
+                ProjectFolder.TRANSLATIONS),
+                String.format(ProjectFile.TMPL_TRANSLATION, lang)));
+        Map<String, String> map = new HashMap<>();
+        t.getCustomLabels().forEach((tr) -> {
+            map.put(tr.getName(), tr.getLabel());
+        });
+        return map;
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * @param i label index.
+     * @return label key.
+     */
+    private static String key(final int i) {
+        return String.format("Scale_Label_%07d", i);
+    }
+    /**
+     * @param lang language.
+     * @param i label index.
+     * @return label value.
+     */
+    private static String value(final String lang, final int i) {
+        return lang + " value " + i + (i % 7 == 0
+                ? ", with \"quotes\", 'apostrophes' & <tags>" : "");
+    }
+    /**
+     * Open metadata file.
+     * @param dir folder, created.
+     * @param name file name.
+     * @return UTF-8 writer.
+     * @throws IOException error.
+     */
+    private static Writer writer(final File dir, final String name)
+            throws IOException {
+        dir.mkdirs();
+        return new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(new File(dir, name)),
+                StandardCharsets.UTF_8));
+    }
+    /**
+     * Write indented line.
+     * @param w writer.
+     * @param depth indent depth, 4 spaces each.
+     * @param text line.
+     * @throws IOException error.
+     */
+    private static void line(final Writer w, final int depth,
+            final String text) throws IOException {
+        for (int i = 0; i < depth; i++) {
+            w.write("    ");
+        }
+        w.write(text);
+        w.write('\n');
+    }
+    /**
+     * Write element of a metadata entry.
+     * @param w writer.
+     * @param name element name.
+     * @param text element text.
+     * @throws IOException error.
+     */
+    private static void element(final Writer w, final String name,
+            final String text) throws IOException {
+        line(w, 2, "<" + name + ">" + escape(text) + "</" + name + ">");
+    }
+    /**
+     * Escape text as the Metadata API does, quotes included.
+     * @param text text.
+     * @return escaped text.
+     */
+    private static String escape(final String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    sb.append("&amp;");
+                    break;
+                case '<':
+                    sb.append("&lt;");
+                    break;
+                case '>':
+                    sb.append("&gt;");
+                    break;
+                case '"':
+                    sb.append("&quot;");
+                    break;
+                case '\'':
+                    sb.append("&apos;");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Change set and journal of an import.
+ * @author ss
+ */
+public class ChangeJournalTest {
+    /** Translations file path. */
+    private static final String DE = "translations/de.translation";
+    /** Custom labels file path. */
+    private static final String LABELS = "labels/CustomLabels.labels";
+    /** Journal folder. */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    @Test(timeout = 10000)
+    public void completeReplacesJournal() throws Exception {
+        File file = journalFile("previous");
+        ChangeSet changes = new ChangeSet();
+        try (ChangeJournal journal = new ChangeJournal(file, false)) {
+            changes.setJournal(journal);
+            List<Thread> producers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                String path = t % 2 == 0 ? DE : LABELS;
+                int first = t * 1000;
+                producers.add(new Thread(() -> {
+                    for (int i = first; i < first + 1000; i++) {
+                        changes.add(path, "Key_" + i, "old", "new");
+                    }
+                }));
+            }
+            for (Thread t : producers) {
+                t.start();
+            }
+            for (Thread t : producers) {
+                t.join();
+            }
+            changes.add(DE, "Quoted, \"key\"", "a\nb", "c");
+            journal.complete();
+            assertEquals(4001, journal.size());
+        }
+        ChangeSet read = ChangeSet.read(file);
+        assertEquals(changes.getFiles(), read.getFiles());
+        assertEquals(changes.getKeys(DE), read.getKeys(DE));
+        assertEquals(changes.getKeys(LABELS), read.getKeys(LABELS));
+        assertEquals(2001, read.getKeys(DE).size());
+        assertTrue(read.getKeys(DE).contains("Quoted, \"key\""));
+        assertNoTemp();
+    }
+    @Test(timeout = 10000)
+    public void closeWithoutCompleteKeepsPreviousJournal() throws Exception {
+        File file = journalFile("previous");
+        ChangeSet changes = new ChangeSet();
+        try (ChangeJournal journal = new ChangeJournal(file, false)) {
+            changes.setJournal(journal);
+            changes.add(DE, "Greeting", "Hallo", "Servus");
+        }
+        assertEquals("previous", new String(Files.readAllBytes(
+                file.toPath()), StandardCharsets.UTF_8));
+        assertNoTemp();
+    }
+    @Test
+    public void journalWithoutFileCounts() throws Exception {
+        ChangeSet changes = new ChangeSet();
+        try (ChangeJournal journal = new ChangeJournal(null, false)) {
+            changes.setJournal(journal);
+            changes.add(DE, "Greeting", "Hallo", "Servus");
+            changes.add(LABELS, "Greeting", "Hello", "Hi");
+            journal.complete();
+            assertEquals(2, journal.size());
+        }
+        assertTrue(changes.contains(DE));
+        assertTrue(changes.contains(LABELS));
+    }
+    @Test
+    public void changeSetIsSorted() throws Exception {
+        ChangeSet changes = new ChangeSet();
+        changes.add(LABELS, "b");
+        changes.add(DE, "b");
+        changes.add(DE, "a");
+        changes.add(DE, "a");
+        File file = new File(folder.getRoot(), "changes.csv");
+        changes.write(file);
+        assertEquals(Arrays.asList("file,key", LABELS + ",b", DE + ",a",
+                DE + ",b"), Files.readAllLines(file.toPath(),
+                        StandardCharsets.UTF_8));
+        assertEquals(changes.getFiles(), ChangeSet.read(file).getFiles());
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Create journal of a previous import.
+     * @param content content.
+     * @return journal file.
+     * @throws Exception error.
+     */
+    private File journalFile(final String content) throws Exception {
+        File file = new File(folder.getRoot(), "journal.csv");
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+    /**
+     * Check that no temporary files are left.
+     */
+    private void assertNoTemp() {
+        String[] names = folder.getRoot().list(
+                (d, name) -> name.endsWith(".tmp"));
+        assertEquals(Arrays.asList(), Arrays.asList(names));
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Conflict policies of {@link LanguageMapMerger}.
+ * @author ss
+ */
+public class LanguageMapMergerTest {
+    /** Report folder. */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    @Test
+    public void sameValuesAreNoConflict() {
+        LanguageMapMerger merger = merge(LanguageMapMerger.Policy.FAIL,
+                workbook("Greeting", "Hallo", "Bye", "Tschuess"),
+                workbook("Greeting", "Hallo", "Other", "Andere"));
+        assertTrue(merger.getConflicts().isEmpty());
+        assertFalse(merger.isFailed());
+        Map<String, String> de = merger.getLanguageMap().get("de");
+        assertEquals(3, de.size());
+        assertEquals("Andere", de.get("Other"));
+    }
+    @Test
+    public void lastWins() {
+        LanguageMapMerger merger = merge(LanguageMapMerger.Policy.LAST_WINS,
+                workbook("Greeting", "Hallo", "Bye", "Tschuess"),
+                workbook("Greeting", "Servus", "Bye", ""));
+        assertEquals(2, merger.getConflicts().size());
+        assertFalse(merger.isFailed());
+        Map<String, String> de = merger.getLanguageMap().get("de");
+        assertEquals("Servus", de.get("Greeting"));
+        assertEquals("", de.get("Bye"));
+    }
+    @Test
+    public void failKeepsFirstAndFails() {
+        LanguageMapMerger merger = merge(LanguageMapMerger.Policy.FAIL,
+                workbook("Greeting", "Hallo"), workbook("Greeting", "Servus"));
+        assertEquals(1, merger.getConflicts().size());
+        assertTrue(merger.isFailed());
+        assertEquals("Hallo",
+                merger.getLanguageMap().get("de").get("Greeting"));
+    }
+    @Test
+    public void preferNonEmpty() {
+        LanguageMapMerger merger = merge(
+                LanguageMapMerger.Policy.PREFER_NON_EMPTY,
+                workbook("Greeting", "Hallo", "Bye", "", "Other", "Andere"),
+                workbook("Greeting", "", "Bye", "Tschuess", "Other", "Neu"));
+        assertEquals(3, merger.getConflicts().size());
+        assertFalse(merger.isFailed());
+        Map<String, String> de = merger.getLanguageMap().get("de");
+        assertEquals("Hallo", de.get("Greeting"));
+        assertEquals("Tschuess", de.get("Bye"));
+        assertEquals("Neu", de.get("Other"));
+    }
+    @Test
+    public void reportHasSourcesAndRows() throws Exception {
+        LanguageMapMerger merger = merge(LanguageMapMerger.Policy.LAST_WINS,
+                workbook("Greeting", "Hallo", "Bye", "Tschuess"),
+                workbook("Bye", "Servus"));
+        File report = new File(folder.getRoot(), "conflicts.csv");
+        merger.writeReport(report);
+        List<String> lines = Files.readAllLines(report.toPath(),
+                StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList(
+                "key,language,kept value,kept source,kept row,"
+                        + "dropped value,dropped source,dropped row",
+                "Bye,de,Servus,book1,2,Tschuess,book0,3"), lines);
+        // a clean merge removes the previous report
+        merge(LanguageMapMerger.Policy.LAST_WINS,
+                workbook("Greeting", "Hallo")).writeReport(report);
+        assertFalse(report.exists());
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Read workbook rows.
+     * @param keyValues key and german value pairs.
+     * @return workbook data.
+     */
+    private static LanguageMapBuilder workbook(final String... keyValues) {
+        LanguageMapBuilder builder = new LanguageMapBuilder();
+        builder.accept(0, Arrays.asList("Key", "Description", "de"));
+        for (int i = 0; i < keyValues.length; i += 2) {
+            builder.accept(i / 2 + 1, Arrays.asList(keyValues[i], "",
+                    keyValues[i + 1]));
+        }
+        return builder;
+    }
+    /**
+     * Merge workbooks in order, named book0, book1...
+     * @param policy conflict policy.
+     * @param workbooks workbooks.
+     * @return merger.
+     */
+    private static LanguageMapMerger merge(
+            final LanguageMapMerger.Policy policy,
+            final LanguageMapBuilder... workbooks) {
+        LanguageMapMerger merger = new LanguageMapMerger(policy);
+        for (int i = 0; i < workbooks.length; i++) {
+            merger.merge("book" + i, workbooks[i]);
+        }
+        return merger;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Commit, rollback and restore of {@link MetadataTransaction}.
+ * @author ss
+ */
+public class MetadataTransactionTest {
+    /** Project folder. */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    @Test
+    public void commitReplacesFiles() throws Exception {
+        File labels = file("labels", "CustomLabels.labels", "old labels");
+        File de = file("translations", "de.translation", "old de");
+        try (MetadataTransaction tx = new MetadataTransaction(null)) {
+            tx.stage(labels, (os) -> os.write(bytes("new labels")));
+            tx.stage(de, (os) -> os.write(bytes("new de")));
+            tx.commit();
+        }
+        assertEquals("new labels", read(labels));
+        assertEquals("new de", read(de));
+        assertNoTemp(labels.getParentFile());
+        assertNoTemp(de.getParentFile());
+    }
+    @Test
+    public void closeWithoutCommitRollsBack() throws Exception {
+        File labels = file("labels", "CustomLabels.labels", "old labels");
+        try (MetadataTransaction tx = new MetadataTransaction(null)) {
+            tx.stage(labels, (os) -> os.write(bytes("new labels")));
+        }
+        assertEquals("old labels", read(labels));
+        assertNoTemp(labels.getParentFile());
+    }
+    @Test
+    public void failedStageKeepsOriginal() throws Exception {
+        File labels = file("labels", "CustomLabels.labels", "old labels");
+        try (MetadataTransaction tx = new MetadataTransaction(null)) {
+            tx.stage(labels, (os) -> {
+                os.write(bytes("partial"));
+                throw new IOException("producer failed");
+            });
+            fail("stage error expected");
+        } catch (IOException e) {
+            assertEquals("producer failed", e.getMessage());
+        }
+        assertEquals("old labels", read(labels));
+        assertNoTemp(labels.getParentFile());
+    }
+    @Test
+    public void failedCommitRestoresBackup() throws Exception {
+        File labels = file("labels", "CustomLabels.labels", "old labels");
+        // a non-empty directory can't be replaced, the second move fails
+        File blocked = folder.newFolder("translations", "de.translation");
+        Files.write(new File(blocked, "keep").toPath(), bytes("x"));
+        File backup = folder.newFolder("backup");
+        try (MetadataTransaction tx = new MetadataTransaction(backup)) {
+            tx.stage(labels, (os) -> os.write(bytes("new labels")));
+            tx.stage(blocked, (os) -> os.write(bytes("new de")));
+            tx.commit();
+            fail("commit error expected");
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals("old labels", read(labels));
+        assertEquals("old labels",
+                read(new File(new File(backup, "labels"),
+                        "CustomLabels.labels")));
+        assertTrue(blocked.isDirectory());
+        assertNoTemp(labels.getParentFile());
+        assertNoTemp(blocked.getParentFile());
+    }
+    @Test(expected = IllegalStateException.class)
+    public void stageAfterCommitFails() throws Exception {
+        File labels = file("labels", "CustomLabels.labels", "old labels");
+        try (MetadataTransaction tx = new MetadataTransaction(null)) {
+            tx.commit();
+            tx.stage(labels, (os) -> os.write(bytes("new labels")));
+        }
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Create file.
+     * @param dir folder name.
+     * @param name file name.
+     * @param content content.
+     * @return file.
+     * @throws Exception error.
+     */
+    private File file(final String dir, final String name,
+            final String content) throws Exception {
+        File d = new File(folder.getRoot(), dir);
+        d.mkdirs();
+        File f = new File(d, name);
+        Files.write(f.toPath(), bytes(content));
+        return f;
+    }
+    /**
+     * @param text text.
+     * @return UTF-8 bytes.
+     */
+    private static byte[] bytes(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+    /**
+     * @param f file.
+     * @return file content.
+     * @throws Exception error.
+     */
+    private static String read(final File f) throws Exception {
+        return new String(Files.readAllBytes(f.toPath()),
+                StandardCharsets.UTF_8);
+    }
+    /**
+     * Check that no temporary files are left.
+     * @param dir folder.
+     */
+    private static void assertNoTemp(final File dir) {
+        String[] names = dir.list((d, name) -> name.endsWith(".tmp"));
+        assertEquals(Arrays.asList(), Arrays.asList(names));
+    }
+}
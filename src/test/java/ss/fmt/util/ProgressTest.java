@@ -0,0 +1,77 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.util.concurrent.CancellationException;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Cooperative cancellation of {@link Progress}.
+ * @author ss
+ */
+public class ProgressTest {
+    @Test
+    public void runsUntilInterrupted() {
+        try (Progress progress = Progress.disabled()) {
+            progress.phase("apply", 3);
+            progress.increment();
+            progress.add(2);
+            progress.checkCancelled();
+            assertFalse(progress.isCancelled());
+        }
+    }
+    @Test(timeout = 10000)
+    public void interruptCancelsAndWaitsForClose() throws Exception {
+        Progress progress = Progress.start("test", true);
+        progress.phase("apply", 10);
+        progress.increment();
+        // the shutdown hook runs on its own thread
+        Thread hook = new Thread(progress::interrupted);
+        hook.start();
+        while (!progress.isCancelled()) {
+            Thread.sleep(10);
+        }
+        try {
+            progress.increment();
+            fail("cancellation expected");
+        } catch (CancellationException e) {
+            assertEquals("test cancelled", e.getMessage());
+        }
+        try {
+            progress.phase("write", -1);
+            fail("cancellation expected");
+        } catch (CancellationException e) {
+            // expected
+        }
+        hook.join(200);
+        assertTrue("hook waits for cleanup", hook.isAlive());
+        progress.close();
+        hook.join();
+        assertTrue(progress.isCancelled());
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Re-entrancy and timeouts of {@link ProjectLock}.
+ * @author ss
+ */
+public class ProjectLockTest {
+    /** Short wait timeout, ms. */
+    private static final long TIMEOUT = 200;
+    /** Temporary folder. */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    /** Project 'src' folder. */
+    private File src;
+    @Before
+    public void createProject() throws Exception {
+        src = folder.newFolder("src");
+    }
+    @Test(timeout = 10000)
+    public void sharedLocksAreReentrantAndConcurrent() throws Exception {
+        try (ProjectLock outer = ProjectLock.shared(src, TIMEOUT)) {
+            try (ProjectLock inner = ProjectLock.shared(src, TIMEOUT)) {
+                assertEquals(Boolean.TRUE, inThread(() -> {
+                    try (ProjectLock other = ProjectLock.shared(src,
+                            TIMEOUT)) {
+                        return true;
+                    }
+                }));
+            }
+            assertTimeout(() -> ProjectLock.exclusive(src, TIMEOUT));
+        }
+        assertEquals(Boolean.TRUE, inThread(() -> {
+            try (ProjectLock other = ProjectLock.exclusive(src, TIMEOUT)) {
+                return true;
+            }
+        }));
+    }
+    @Test(timeout = 10000)
+    public void exclusiveLockIsReentrant() throws Exception {
+        try (ProjectLock outer = ProjectLock.exclusive(src, TIMEOUT)) {
+            try (ProjectLock inner = ProjectLock.exclusive(src, TIMEOUT);
+                    ProjectLock read = ProjectLock.shared(src, TIMEOUT)) {
+                assertTimeout(() -> ProjectLock.shared(src, TIMEOUT));
+            }
+            // released locks are closed once only
+            ProjectLock again = ProjectLock.shared(src, TIMEOUT);
+            again.close();
+            again.close();
+            assertTimeout(() -> ProjectLock.shared(src, TIMEOUT));
+        }
+        assertEquals(Boolean.TRUE, inThread(() -> {
+            try (ProjectLock other = ProjectLock.shared(src, TIMEOUT)) {
+                return true;
+            }
+        }));
+    }
+    @Test(timeout = 10000)
+    public void timeoutNamesLockFile() throws Exception {
+        try (ProjectLock lock = ProjectLock.exclusive(src, TIMEOUT)) {
+            TimeoutException e = assertTimeout(
+                    () -> ProjectLock.exclusive(src, TIMEOUT));
+            assertTrue(e.getMessage(), e.getMessage().contains(
+                    ProjectLock.LOCK_FILE));
+        }
+    }
+    @Test
+    public void lockFileIsOutsideProject() throws Exception {
+        try (ProjectLock lock = ProjectLock.shared(src, TIMEOUT)) {
+            assertTrue(new File(WorkFolder.of(src), ProjectLock.LOCK_FILE)
+                    .exists());
+        }
+        assertEquals(Arrays.asList(), Arrays.asList(src.list()));
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Run task in another thread, locks are held per thread.
+     * @param <T> result type.
+     * @param task task.
+     * @return task result.
+     * @throws Exception task error.
+     */
+    private static <T> T inThread(final Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            return executor.submit(task).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception
+                    ? (Exception) e.getCause() : e;
+        } finally {
+            executor.shutdown();
+        }
+    }
+    /**
+     * Check that another thread doesn't get the lock.
+     * @param lock lock acquisition.
+     * @return timeout error.
+     * @throws Exception other error.
+     */
+    private static TimeoutException assertTimeout(
+            final Callable<ProjectLock> lock) throws Exception {
+        try {
+            inThread(() -> {
+                lock.call().close();
+                return null;
+            });
+            fail("lock timeout expected");
+            return null;
+        } catch (TimeoutException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Skipping of unedited rows by {@link RowHash}.
+ * @author ss
+ */
+public class RowHashTest {
+    /** Header row with the hash column last. */
+    private static final List<String> HEADER =
+            Arrays.asList("Key", "Description", "de", RowHash.HEADER);
+    @Test
+    public void hashIgnoresHashColumn() {
+        List<String> row = Arrays.asList("Greeting", "Hello", "Hallo");
+        String hash = RowHash.compute(row, -1);
+        assertEquals(16, hash.length());
+        assertEquals(hash, RowHash.compute(exported(row), row.size()));
+        assertFalse(hash.equals(RowHash.compute(
+                Arrays.asList("Greeting", "Hello", "Hallo!"), -1)));
+        // values don't run into each other
+        assertFalse(RowHash.compute(Arrays.asList("ab", "c"), -1).equals(
+                RowHash.compute(Arrays.asList("a", "bc"), -1)));
+    }
+    @Test
+    public void uneditedRowsAreSkipped() {
+        LanguageMapBuilder builder = new LanguageMapBuilder();
+        builder.accept(0, HEADER);
+        builder.accept(1, exported(Arrays.asList("Greeting", "Hello",
+                "Hallo")));
+        List<String> edited = exported(Arrays.asList("Bye", "Bye",
+                "Tschuess"));
+        edited.set(2, "Tschuess!");
+        builder.accept(2, edited);
+        assertEquals(1, builder.getSkipped());
+        assertEquals(1, builder.getRows());
+        assertEquals(Collections.singletonMap("Bye", "Tschuess!"),
+                builder.getLanguageMap().get("de"));
+        assertEquals(-1, builder.getRow("Greeting"));
+        assertEquals(3, builder.getRow("Bye"));
+        assertFalse(builder.getLanguages().contains(RowHash.HEADER));
+    }
+    @Test
+    public void rowsWithoutHashAreApplied() {
+        LanguageMapBuilder builder = new LanguageMapBuilder();
+        builder.accept(0, HEADER);
+        builder.accept(1, Arrays.asList("Greeting", "Hello", "Hallo", ""));
+        builder.accept(2, Arrays.asList("Bye", "Bye", "Tschuess"));
+        assertEquals(0, builder.getSkipped());
+        assertEquals(2, builder.getRows());
+        assertTrue(builder.getLanguageMap().get("de").containsKey("Bye"));
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Add hash column as the export writes it.
+     * @param row row values.
+     * @return row with hash.
+     */
+    private static List<String> exported(final List<String> row) {
+        List<String> result = new ArrayList<>(row);
+        result.add(RowHash.compute(row, -1));
+        return result;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Pivotal Software, Inc..
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ss.fmt.util;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ss.fmt.jaxb.model.CustomLabel;
+import ss.fmt.jaxb.model.CustomLabels;
+import ss.fmt.util.TranslationValidator.Issue;
+import ss.fmt.util.TranslationValidator.IssueType;
+import ss.fmt.util.TranslationValidator.Mode;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks of {@link TranslationValidator} fed by {@link LanguageMapBuilder}.
+ * @author ss
+ */
+public class TranslationValidatorTest {
+    /** Header row. */
+    private static final List<String> HEADER =
+            Arrays.asList("Key", "Description", "de");
+    /** Report folder. */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    @Test
+    public void placeholderMasks() {
+        assertEquals(0, TranslationValidator.placeholders(null));
+        assertEquals(0, TranslationValidator.placeholders("no {x} {} {"));
+        assertEquals(0b101, TranslationValidator.placeholders("{2} and {0}"));
+        assertEquals(1L << 63, TranslationValidator.placeholders("{99}"));
+    }
+    @Test
+    public void matchingPlaceholdersPass() {
+        TranslationValidator validator = validator(Mode.REPORT_ONLY);
+        feed(validator, row("Greeting", "{1}, hallo {0}!"),
+                row("Plain", "Einfach"), row("Plain2", ""));
+        assertEquals(Collections.emptyList(), validator.getIssues());
+    }
+    @Test
+    public void placeholderMismatchIsReported() {
+        TranslationValidator validator = validator(Mode.REPORT_ONLY);
+        feed(validator, row("Plain", "Einfach"),
+                row("Greeting", "Hallo {0}!"));
+        List<Issue> issues = validator.getIssues();
+        assertEquals(1, issues.size());
+        assertIssue(issues.get(0), IssueType.PLACEHOLDER_MISMATCH, 3,
+                "Greeting");
+        assertEquals("de", issues.get(0).getLanguage());
+        assertTrue(issues.get(0).getMessage(),
+                issues.get(0).getMessage().contains("[{0}, {1}]"));
+    }
+    @Test
+    public void longValueIsReported() {
+        TranslationValidator validator = validator(Mode.REPORT_ONLY);
+        char[] value = new char[TranslationValidator.MAX_VALUE_LENGTH];
+        Arrays.fill(value, 'a');
+        feed(validator, row("Plain", new String(value)),
+                row("Plain2", new String(value) + "a"));
+        List<Issue> issues = validator.getIssues();
+        assertEquals(1, issues.size());
+        assertIssue(issues.get(0), IssueType.VALUE_TOO_LONG, 3, "Plain2");
+    }
+    @Test
+    public void unknownAndDuplicateKeysAreReported() {
+        TranslationValidator validator = validator(Mode.REPORT_ONLY);
+        feed(validator, row("Plain", "Einfach"), row("Missing", "Fehlt"),
+                row("Plain", "Wieder"));
+        List<Issue> issues = validator.getIssues();
+        assertEquals(2, issues.size());
+        assertIssue(issues.get(0), IssueType.UNKNOWN_KEY, 3, "Missing");
+        assertIssue(issues.get(1), IssueType.DUPLICATE_KEY, 4, "Plain");
+    }
+    @Test
+    public void unknownLanguageIsReportedOnHeader() {
+        TranslationValidator validator = validator(Mode.REPORT_ONLY);
+        LanguageMapBuilder builder = new LanguageMapBuilder(validator);
+        builder.accept(0, Arrays.asList("Key", "Description", "de", "fr"));
+        List<Issue> issues = validator.getIssues();
+        assertEquals(1, issues.size());
+        assertIssue(issues.get(0), IssueType.UNKNOWN_LANGUAGE, 1, null);
+        assertEquals("fr", issues.get(0).getLanguage());
+    }
+    @Test
+    public void failFastStopsOnFirstIssue() {
+        TranslationValidator validator = validator(Mode.FAIL_FAST);
+        LanguageMapBuilder builder = new LanguageMapBuilder(validator);
+        builder.accept(0, HEADER);
+        builder.accept(1, row("Plain", "Einfach"));
+        try {
+            builder.accept(2, row("Greeting", "Hallo"));
+            fail("validation error expected");
+        } catch (TranslationValidator.ValidationException e) {
+            assertIssue(e.getIssue(), IssueType.PLACEHOLDER_MISMATCH, 3,
+                    "Greeting");
+        }
+        assertEquals(Collections.emptyList(), validator.getIssues());
+    }
+    @Test
+    public void reportHasSpreadsheetRows() throws Exception {
+        TranslationValidator validator = validator(Mode.REPORT_ONLY);
+        feed(validator, row("Missing", "Fehlt"));
+        File report = new File(folder.getRoot(), "validation.csv");
+        validator.writeReport(report);
+        List<String> lines = Files.readAllLines(report.toPath(),
+                StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1), lines.get(1).startsWith("2,Missing,"));
+        // a clean run removes the previous report
+        validator(Mode.REPORT_ONLY).writeReport(report);
+        assertFalse(report.exists());
+    }
+// ====================== PRIVATE =============================================
+    /**
+     * Create validator for sample labels.
+     * @param mode validation mode.
+     * @return validator.
+     */
+    private static TranslationValidator validator(final Mode mode) {
+        List<CustomLabel> labels = new ArrayList<>();
+        labels.add(label("Greeting", "Hello {0}, {1}!"));
+        labels.add(label("Plain", "Plain"));
+        labels.add(label("Plain2", "Plain"));
+        CustomLabels customLabels = new CustomLabels();
+        customLabels.setLabels(labels);
+        return new TranslationValidator(customLabels,
+                Collections.singleton("de"), mode);
+    }
+    /**
+     * @param name label name.
+     * @param value source value.
+     * @return custom label.
+     */
+    private static CustomLabel label(final String name, final String value) {
+        CustomLabel cl = new CustomLabel();
+        cl.setFullName(name);
+        cl.setValue(value);
+        cl.setLanguage("en_US");
+        return cl;
+    }
+    /**
+     * @param key translation key.
+     * @param value german value.
+     * @return import row.
+     */
+    private static List<String> row(final String key, final String value) {
+        return Arrays.asList(key, "", value);
+    }
+    /**
+     * Feed header and rows, zero based as read from the workbook.
+     * @param validator validator.
+     * @param rows data rows.
+     */
+    @SafeVarargs
+    private static void feed(final TranslationValidator validator,
+            final List<String>... rows) {
+        LanguageMapBuilder builder = new LanguageMapBuilder(validator);
+        builder.accept(0, HEADER);
+        for (int i = 0; i < rows.length; i++) {
+            builder.accept(i + 1, rows[i]);
+        }
+    }
+    /**
+     * Check issue.
+     * @param issue issue.
+     * @param type expected type.
+     * @param row expected spreadsheet row.
+     * @param key expected key.
+     */
+    private static void assertIssue(final Issue issue, final IssueType type,
+            final int row, final String key) {
+        assertEquals(type, issue.getType());
+        assertEquals(row, issue.getRow());
+        assertEquals(key, issue.getKey());
+    }
+}